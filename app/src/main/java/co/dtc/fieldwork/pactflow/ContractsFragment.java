@@ -2,10 +2,12 @@ package co.dtc.fieldwork.pactflow;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Trace;
 import android.text.Editable;
+import android.text.TextUtils;
 import android.text.TextWatcher;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,6 +18,7 @@ import android.widget.TextView;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.view.OneShotPreDrawListener;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
@@ -32,12 +35,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 import co.dtc.fieldwork.pactflow.adapter.ContractAdapter;
+import co.dtc.fieldwork.pactflow.api.request.ContractFilter;
 import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.repository.ContractConflict;
 import co.dtc.fieldwork.pactflow.ui.contract.CreateContractActivity;
 import co.dtc.fieldwork.pactflow.ui.decoration.SpacesItemDecoration;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
 import co.dtc.fieldwork.pactflow.viewmodel.ContractViewModel;
 
 public class ContractsFragment extends Fragment {
+    // Rows from either end of the loaded window at which the next page is requested
+    private static final int PREFETCH_DISTANCE = 10;
+    // Async trace section from the Contracts tab tap to the first frame of the list, read by :macrobenchmark
+    static final String TRACE_FIRST_FRAME = "ContractsTab.firstFrame";
+
     private ContractViewModel viewModel;
     private ContractAdapter adapter;
     private ProgressBar progressBar;
@@ -46,14 +57,16 @@ public class ContractsFragment extends Fragment {
     private MaterialButton btnCreateFirstContract;
     private TextInputEditText etSearch;
     private View rootView; // Store root view to prevent NPE
+    // Contract whose details were asked for by a tap; the model's contract is kept across views
+    private Long openingContractId = null;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         rootView = inflater.inflate(R.layout.fragment_contracts, container, false);
 
-        // Initialize ViewModel
-        viewModel = new ViewModelProvider(this).get(ContractViewModel.class);
+        // Scoped to the activity so the list survives tab switches and view recreation
+        viewModel = new ViewModelProvider(requireActivity()).get(ContractViewModel.class);
 
         // Initialize views
         initializeViews(rootView);
@@ -68,9 +81,31 @@ public class ContractsFragment extends Fragment {
         // Check network and load data
         checkNetworkAndLoadData();
 
+        OneShotPreDrawListener.add(rootView, ContractsFragment::endFirstFrameTrace);
         return rootView;
     }
 
+    @Override
+    public void onHiddenChanged(boolean hidden) {
+        super.onHiddenChanged(hidden);
+        // Coming back to the tab revalidates, which is a no-op while the list is fresh
+        if (!hidden && viewModel != null) {
+            checkNetworkAndLoadData();
+        }
+    }
+
+    static void beginFirstFrameTrace() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(TRACE_FIRST_FRAME, 0);
+        }
+    }
+
+    private static void endFirstFrameTrace() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(TRACE_FIRST_FRAME, 0);
+        }
+    }
+
     private void initializeViews(View view) {
         progressBar = view.findViewById(R.id.progressBar);
         swipeRefreshLayout = view.findViewById(R.id.swipeRefreshLayout);
@@ -82,11 +117,11 @@ public class ContractsFragment extends Fragment {
     private void setupRecyclerView(View view) {
         RecyclerView recyclerView = view.findViewById(R.id.rvContracts);
         if (recyclerView == null) {
-            Log.e("ContractsFragment", "RecyclerView not found in layout!");
+            AppLog.e("ContractsFragment", "RecyclerView not found in layout!");
             return;
         }
 
-        Log.d("ContractsFragment", "Setting up RecyclerView");
+        AppLog.d("ContractsFragment", "Setting up RecyclerView");
 
         // Use a LinearLayoutManager with vertical orientation
         LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
@@ -99,21 +134,32 @@ public class ContractsFragment extends Fragment {
 
         // Set up the adapter
         adapter = new ContractAdapter(contract -> {
-            // Handle contract item click
-            Log.d("ContractsFragment", "Contract clicked: " + contract.getTitle());
-            // TODO: Navigate to contract details
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractsFragment", "Contract clicked: " + contract.getTitle());
+            }
+            // Rows are summaries; the full contract comes from the cache, the store or the server
+            openingContractId = contract.getId();
+            viewModel.getContractById(contract.getId());
         });
 
         // Set the adapter on the RecyclerView
         recyclerView.setAdapter(adapter);
-        Log.d("ContractsFragment", "RecyclerView adapter set");
+        AppLog.d("ContractsFragment", "RecyclerView adapter set");
 
-        // Add scroll listener for debugging
+        // Load further pages as the user approaches either end of the window
         recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
             public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-                Log.d("ContractsFragment", "RecyclerView scrolled. dx: " + dx + ", dy: " + dy);
+                // Runs every frame while scrolling, so not even a supplier is allocated in release
+                if (AppLog.DEBUG) {
+                    AppLog.v("ContractsFragment", "RecyclerView scrolled. dx: " + dx + ", dy: " + dy);
+                }
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    viewModel.loadNextPage();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    viewModel.loadPreviousPage();
+                }
             }
         });
     }
@@ -136,7 +182,7 @@ public class ContractsFragment extends Fragment {
     private void setupRefreshLayout() {
         swipeRefreshLayout.setOnRefreshListener(() -> {
             if (isNetworkAvailable()) {
-                loadContracts();
+                viewModel.refreshContracts();
             } else {
                 swipeRefreshLayout.setRefreshing(false);
                 showNoInternetDialog();
@@ -159,29 +205,96 @@ public class ContractsFragment extends Fragment {
             btnAddContract.setOnClickListener(v -> navigateToCreateContract());
         }
 
+        // Drafts button toggles a server-side filter, so only unfinalized contracts are downloaded
+        MaterialButton btnDraftContracts = rootView.findViewById(R.id.btnDraftContracts);
+        if (btnDraftContracts != null) {
+            updateDraftsButton(btnDraftContracts);
+            btnDraftContracts.setOnClickListener(v -> {
+                viewModel.setFilter(viewModel.getFilter() == null ? ContractFilter.drafts() : null);
+                updateDraftsButton(btnDraftContracts);
+            });
+        }
+
         // Create First Contract button in empty state
         if (btnCreateFirstContract != null) {
             btnCreateFirstContract.setOnClickListener(v -> navigateToCreateContract());
         }
     }
 
+    private void updateDraftsButton(MaterialButton button) {
+        button.setText(viewModel.getFilter() == null ? "Drafts" : "All");
+    }
+
     private void observeViewModel() {
         viewModel.getContracts().observe(getViewLifecycleOwner(), contracts -> {
-            Log.d("ContractsFragment", "Observed contracts list update. Size: " + (contracts != null ? contracts.size() : 0));
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractsFragment", "Observed contracts list update. Size: " + (contracts != null ? contracts.size() : 0));
+            }
             updateContractsList(contracts);
         });
 
         viewModel.getIsLoading().observe(getViewLifecycleOwner(), isLoading -> {
-            Log.d("ContractsFragment", "Loading state changed: " + isLoading);
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractsFragment", "Loading state changed: " + isLoading);
+            }
             setLoading(isLoading);
         });
 
         viewModel.getErrorMessage().observe(getViewLifecycleOwner(), error -> {
             if (error != null && !error.isEmpty()) {
-                Log.e("ContractsFragment", "Error observed: " + error);
+                AppLog.e("ContractsFragment", "Error observed: " + error);
                 showError(error);
             }
         });
+
+        viewModel.getContract().observe(getViewLifecycleOwner(), contract -> {
+            if (contract != null && openingContractId != null && openingContractId.equals(contract.getId())) {
+                openingContractId = null;
+                showContractDetails(contract);
+            }
+        });
+
+        viewModel.getConflicts().observe(getViewLifecycleOwner(), conflict -> {
+            if (conflict != null) {
+                showConflictDialog(conflict);
+            }
+        });
+    }
+
+    private void showConflictDialog(ContractConflict conflict) {
+        String title = conflict.getServer().getTitle();
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Edit Conflict")
+                .setMessage("Someone else changed " + TextUtils.join(", ", conflict.getConflictingFields())
+                        + " of \"" + (title != null ? title : "this contract")
+                        + "\" while your edit was waiting to sync. Your edit is held back until you choose.")
+                .setPositiveButton("Keep Mine", (dialog, which) -> viewModel.keepLocalEdit(conflict))
+                .setNegativeButton("Keep Theirs", (dialog, which) -> viewModel.keepServerVersion(conflict))
+                .setCancelable(false)
+                .show();
+    }
+
+    private void showContractDetails(Contract contract) {
+        StringBuilder details = new StringBuilder();
+        appendDetail(details, "Type", contract.getContractType());
+        appendDetail(details, "Amount", contract.getAmount() != null ? String.valueOf(contract.getAmount()) : null);
+        appendDetail(details, "Start", contract.getStartDate());
+        appendDetail(details, "End", contract.getEndDate());
+        appendDetail(details, "Status", contract.isFinalized() ? "Finalized" : "Draft");
+        if (!TextUtils.isEmpty(contract.getDescription())) {
+            details.append("\n").append(contract.getDescription());
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle(contract.getTitle())
+                .setMessage(details.toString())
+                .setPositiveButton("Close", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
+
+    private static void appendDetail(StringBuilder details, String label, String value) {
+        if (!TextUtils.isEmpty(value)) {
+            details.append(label).append(": ").append(value).append("\n");
+        }
     }
 
     private boolean isNetworkAvailable() {
@@ -191,48 +304,47 @@ public class ContractsFragment extends Fragment {
     }
 
     private void checkNetworkAndLoadData() {
-        if (!isNetworkAvailable()) {
-            showNoInternetDialog();
-        } else {
-            loadContracts();
-        }
+        // Show the last known list straight away; the model only syncs once its data is stale
+        viewModel.showContracts(isNetworkAvailable());
     }
 
     private void showNoInternetDialog() {
         new AlertDialog.Builder(requireContext())
                 .setTitle("No Internet Connection")
                 .setMessage("Please check your internet connection and try again")
-                .setPositiveButton("Retry", (dialog, which) -> checkNetworkAndLoadData())
+                .setPositiveButton("Retry", (dialog, which) -> {
+                    if (isNetworkAvailable()) {
+                        viewModel.refreshContracts();
+                    } else {
+                        showNoInternetDialog();
+                    }
+                })
                 .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
                 .show();
     }
 
-    private void loadContracts() {
-        viewModel.loadContracts();
-    }
-
     private void updateContractsList(List<Contract> contracts) {
-        Log.d("ContractsFragment", "updateContractsList called with " + (contracts != null ? contracts.size() : 0) + " items");
+        if (AppLog.DEBUG) {
+            AppLog.d("ContractsFragment", "updateContractsList called with " + (contracts != null ? contracts.size() : 0) + " items");
+        }
 
         if (getView() == null) {
-            Log.e("ContractsFragment", "View is null in updateContractsList");
+            AppLog.e("ContractsFragment", "View is null in updateContractsList");
             return;
         }
 
-        // Log contract details for debugging
         if (contracts != null && !contracts.isEmpty()) {
-            Log.d("ContractsFragment", "Contract list contents:");
-            for (int i = 0; i < Math.min(contracts.size(), 5); i++) {
-                try {
+            // Log contract details for debugging
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractsFragment", "Contract list contents:");
+                for (int i = 0; i < Math.min(contracts.size(), 5); i++) {
                     Contract c = contracts.get(i);
-                    Log.d("ContractsFragment", String.format("  [%d] %s (ID: %s, Finalized: %s)",
+                    AppLog.d("ContractsFragment", String.format("  [%d] %s (ID: %s, Finalized: %s)",
                             i, c.getTitle(), c.getId(), c.isFinalized()));
-                } catch (Exception e) {
-                    Log.e("ContractsFragment", "Error logging contract at index " + i, e);
                 }
-            }
-            if (contracts.size() > 5) {
-                Log.d("ContractsFragment", "  ... and " + (contracts.size() - 5) + " more");
+                if (contracts.size() > 5) {
+                    AppLog.d("ContractsFragment", "  ... and " + (contracts.size() - 5) + " more");
+                }
             }
 
             // Update the adapter
@@ -248,7 +360,9 @@ public class ContractsFragment extends Fragment {
                 rv.setVisibility(View.VISIBLE);
             }
 
-            Log.d("ContractsFragment", "Updated contracts list with " + contracts.size() + " items");
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractsFragment", "Updated contracts list with " + contracts.size() + " items");
+            }
         } else {
             // Show empty state and hide RecyclerView when no contracts
             if (emptyStateView != null) {
@@ -263,13 +377,7 @@ public class ContractsFragment extends Fragment {
             // Update adapter with empty list
             adapter.setContracts(contracts != null ? contracts : new ArrayList<>());
 
-            Log.d("ContractsFragment", "No contracts available, showing empty state");
-        }
-
-        // Force RecyclerView to update
-        RecyclerView rv = getView().findViewById(R.id.rvContracts);
-        if (rv != null && rv.getAdapter() != null) {
-            rv.getAdapter().notifyDataSetChanged();
+            AppLog.d("ContractsFragment", "No contracts available, showing empty state");
         }
     }
 
@@ -4,10 +4,15 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import android.view.MenuItem;
 
 public class HomeActivity extends AppCompatActivity {
+    // Tab fragments are added once and then shown/hidden, so their views and state survive tab switches
+    private static final String TAG_PREFIX = "tab:";
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -17,23 +22,7 @@ public class HomeActivity extends AppCompatActivity {
         bottomNavigationView.setOnNavigationItemSelectedListener(new BottomNavigationView.OnNavigationItemSelectedListener() {
             @Override
             public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-                Fragment selectedFragment = null;
-                if (item.getItemId() == R.id.nav_dashboard) {
-                    selectedFragment = new DashboardFragment();
-                } else if (item.getItemId() == R.id.nav_contracts) {
-                    selectedFragment = new ContractsFragment();
-                } else if (item.getItemId() == R.id.nav_workflow) {
-                    selectedFragment = new WorkFlowFragment();
-                } else if (item.getItemId() == R.id.nav_profile) {
-                    selectedFragment = new ProfileFragment();
-                } else if (item.getItemId() == R.id.nav_settings) {
-                    selectedFragment = new co.dtc.fieldwork.pactflow.ui.settings.SettingsFragment();
-                }
-                if (selectedFragment != null) {
-                    getSupportFragmentManager().beginTransaction().replace(R.id.fragment_container, selectedFragment).commit();
-                    return true;
-                }
-                return false;
+                return showTab(item.getItemId());
             }
         });
         // Set default fragment
@@ -41,4 +30,46 @@ public class HomeActivity extends AppCompatActivity {
             bottomNavigationView.setSelectedItemId(R.id.nav_dashboard);
         }
     }
+
+    private boolean showTab(int itemId) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        String tag = TAG_PREFIX + itemId;
+        Fragment selectedFragment = fragmentManager.findFragmentByTag(tag);
+        FragmentTransaction transaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+
+        if (selectedFragment == null) {
+            selectedFragment = createTab(itemId);
+            if (selectedFragment == null) {
+                return false;
+            }
+            transaction.add(R.id.fragment_container, selectedFragment, tag);
+        } else {
+            transaction.show(selectedFragment);
+        }
+
+        for (Fragment fragment : fragmentManager.getFragments()) {
+            if (fragment != selectedFragment && fragment.getTag() != null
+                    && fragment.getTag().startsWith(TAG_PREFIX) && !fragment.isHidden()) {
+                transaction.hide(fragment);
+            }
+        }
+        transaction.commit();
+        return true;
+    }
+
+    private Fragment createTab(int itemId) {
+        if (itemId == R.id.nav_dashboard) {
+            return new DashboardFragment();
+        } else if (itemId == R.id.nav_contracts) {
+            ContractsFragment.beginFirstFrameTrace();
+            return new ContractsFragment();
+        } else if (itemId == R.id.nav_workflow) {
+            return new WorkFlowFragment();
+        } else if (itemId == R.id.nav_profile) {
+            return new ProfileFragment();
+        } else if (itemId == R.id.nav_settings) {
+            return new co.dtc.fieldwork.pactflow.ui.settings.SettingsFragment();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,20 @@
+package co.dtc.fieldwork.pactflow;
+
+import android.app.Application;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.sync.ContractOutboxWorker;
+
+public class PactFlowApp extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Must run before the first request so the HTTP cache is attached; the client itself is
+        // built by warmUp on a background thread
+        ApiClient.init(this);
+        ContractStore.init(this);
+        ContractOutboxWorker.init(this);
+        ApiClient.warmUp();
+    }
+}
@@ -9,7 +9,6 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.Settings;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,6 +26,7 @@ import com.google.android.material.materialswitch.MaterialSwitch;
 
 import co.dtc.fieldwork.pactflow.R;
 import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
 import co.dtc.fieldwork.pactflow.utils.NotificationHelper;
 
 public class SettingsFragment extends Fragment {
@@ -132,7 +132,7 @@ public class SettingsFragment extends Fragment {
             notificationSwitch = view.findViewById(R.id.switch_notifications);
 
             if (notificationSwitch == null) {
-                Log.e("SettingsFragment", "Switch not found in layout");
+                AppLog.e("SettingsFragment", "Switch not found in layout");
                 return;
             }
 
@@ -173,7 +173,7 @@ public class SettingsFragment extends Fragment {
                     Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show();
 
                 } catch (Exception e) {
-                    Log.e("SettingsFragment", "Error in switch listener", e);
+                    AppLog.e("SettingsFragment", "Error in switch listener", e);
                     if (getContext() != null) {
                         Toast.makeText(getContext(), "Error updating notification settings", Toast.LENGTH_SHORT).show();
                     }
@@ -182,7 +182,7 @@ public class SettingsFragment extends Fragment {
                 }
             });
         } catch (Exception e) {
-            Log.e("SettingsFragment", "Error in onViewCreated", e);
+            AppLog.e("SettingsFragment", "Error in onViewCreated", e);
         }
     }
 }
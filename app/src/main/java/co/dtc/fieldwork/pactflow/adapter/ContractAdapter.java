@@ -1,27 +1,51 @@
 package co.dtc.fieldwork.pactflow.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import android.util.Log;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import co.dtc.fieldwork.pactflow.R;
 import co.dtc.fieldwork.pactflow.model.Contract;
 
 public class ContractAdapter extends RecyclerView.Adapter<ContractAdapter.ContractViewHolder> {
-    private List<Contract> contracts = new ArrayList<>();
+    // Rows are the same contract when the ids match, and unchanged when their formatted
+    // values match; queued local edits change fields without bumping the version
+    private static final DiffUtil.ItemCallback<ContractRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<ContractRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ContractRow oldItem, @NonNull ContractRow newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ContractRow oldItem, @NonNull ContractRow newItem) {
+            return oldItem == newItem || oldItem.hasSameContent(newItem);
+        }
+    };
+
+    // Rows are formatted on one background thread and shared across adapters, so a
+    // recreated list reuses the rows already built
+    private static final Executor rowExecutor = Executors.newSingleThreadExecutor();
+    private static final ContractRowFactory rowFactory = new ContractRowFactory();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Diffs each new list on a background thread and dispatches only the changed rows
+    private final AsyncListDiffer<ContractRow> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private final OnContractClickListener listener;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
+    private int submitGeneration = 0;
 
     public interface OnContractClickListener {
         void onContractClick(Contract contract);
@@ -29,16 +53,31 @@ public class ContractAdapter extends RecyclerView.Adapter<ContractAdapter.Contra
 
     public ContractAdapter(OnContractClickListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     public void setContracts(List<Contract> contracts) {
-        if (contracts != null) {
-            this.contracts = new ArrayList<>(contracts);
-            notifyDataSetChanged();
-        } else {
-            this.contracts.clear();
-            notifyDataSetChanged();
+        final List<Contract> snapshot = contracts != null ? new ArrayList<>(contracts) : new ArrayList<>();
+        final int generation = ++submitGeneration;
+        rowExecutor.execute(() -> {
+            List<ContractRow> rows = rowFactory.buildRows(snapshot);
+            mainHandler.post(() -> {
+                // A newer list was submitted while these rows were being built
+                if (generation == submitGeneration) {
+                    differ.submitList(rows);
+                }
+            });
+        });
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Long id = differ.getCurrentList().get(position).getId();
+        if (id == null) {
+            return RecyclerView.NO_ID;
         }
+        // Queued creates have negative local ids; shift them so -1 never reads as NO_ID
+        return id >= 0 ? id : id - 1;
     }
 
     @NonNull
@@ -46,90 +85,42 @@ public class ContractAdapter extends RecyclerView.Adapter<ContractAdapter.Contra
     public ContractViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_contract, parent, false);
-        return new ContractViewHolder(view);
+        ContractViewHolder holder = new ContractViewHolder(view);
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null && holder.row != null) {
+                listener.onContractClick(holder.row.getContract());
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ContractViewHolder holder, int position) {
-        try {
-            if (position < 0 || position >= contracts.size()) {
-                Log.e("ContractAdapter", "Invalid position: " + position + ", list size: " + contracts.size());
-                return;
-            }
-
-            Contract contract = contracts.get(position);
-            if (contract == null) {
-                Log.e("ContractAdapter", "Contract is null at position: " + position);
-                return;
-            }
-
-            // Debug log contract details
-            Log.d("ContractAdapter", String.format("Binding contract at position %d: %s, isFinalized: %s, ID: %s",
-                    position,
-                    contract.getTitle(),
-                    contract.isFinalized(),
-                    contract.getId()));
-
-            // Format amount with currency
-            String amount = "";
-            try {
-                amount = NumberFormat.getCurrencyInstance().format(contract.getAmount());
-            } catch (Exception e) {
-                Log.e("ContractAdapter", "Error formatting amount: " + e.getMessage());
-                amount = "$" + contract.getAmount();
-            }
-
-            // Format dates
-            String startDate = contract.getStartDate() != null ? contract.getStartDate().toString() : "N/A";
-            String endDate = contract.getEndDate() != null ? contract.getEndDate().toString() : "N/A";
-            String dates = String.format("%s - %s", startDate, endDate);
-
-            // Set text values
-            holder.tvTitle.setText(contract.getTitle() != null ? contract.getTitle() : "No Title");
-            holder.tvAmount.setText(amount);
-            holder.tvType.setText(contract.getContractType() != null ? contract.getContractType() : "");
-            holder.tvDates.setText(dates);
-
-            // Set contract status
-            if (holder.tvStatus != null) {
-                boolean isDraft = !contract.isFinalized();
-                Log.d("ContractAdapter", String.format("Setting status for %s: isDraft=%s, isFinalized=%s",
-                        contract.getTitle(), isDraft, contract.isFinalized()));
-
-                if (isDraft) {
-                    holder.tvStatus.setVisibility(View.VISIBLE);
-                    holder.tvStatus.setText("DRAFT");
-                    holder.tvStatus.setBackgroundResource(R.drawable.draft_status_bg);
-                    Log.d("ContractAdapter", "Draft status shown for: " + contract.getTitle());
-                } else {
-                    holder.tvStatus.setVisibility(View.GONE);
-                    Log.d("ContractAdapter", "Hiding status for finalized contract: " + contract.getTitle());
-                }
+        ContractRow row = differ.getCurrentList().get(position);
+        holder.row = row;
+        holder.tvTitle.setText(row.getTitle());
+        holder.tvAmount.setText(row.getAmount());
+        holder.tvType.setText(row.getType());
+        holder.tvDates.setText(row.getDates());
+        if (holder.tvStatus != null) {
+            if (row.isDraft()) {
+                holder.tvStatus.setVisibility(View.VISIBLE);
+                holder.tvStatus.setText("DRAFT");
+                holder.tvStatus.setBackgroundResource(R.drawable.draft_status_bg);
             } else {
-                Log.e("ContractAdapter", "tvStatus is null in ViewHolder");
+                holder.tvStatus.setVisibility(View.GONE);
             }
-
-            // Set click listener
-            holder.itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onContractClick(contract);
-                } else {
-                    Log.e("ContractAdapter", "Listener is null, cannot handle click");
-                }
-            });
-
-        } catch (Exception e) {
-            Log.e("ContractAdapter", "Error in onBindViewHolder: " + e.getMessage(), e);
         }
     }
 
     @Override
     public int getItemCount() {
-        return contracts.size();
+        return differ.getCurrentList().size();
     }
 
     public static class ContractViewHolder extends RecyclerView.ViewHolder {
         private final TextView tvTitle, tvAmount, tvType, tvDates, tvStatus;
+        private ContractRow row;
 
         public ContractViewHolder(@NonNull View itemView) {
             super(itemView);
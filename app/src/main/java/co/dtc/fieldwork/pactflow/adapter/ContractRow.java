@@ -0,0 +1,85 @@
+package co.dtc.fieldwork.pactflow.adapter;
+
+import java.util.Objects;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Display-ready values for one contract list row, formatted once by {@link ContractRowFactory}
+ * so binding a row is plain field assignment.
+ */
+public final class ContractRow {
+    private final Contract contract;
+    private final String title;
+    private final String amount;
+    private final String type;
+    private final String dates;
+    private final boolean draft;
+
+    ContractRow(Contract contract, String title, String amount, String type, String dates, boolean draft) {
+        this.contract = contract;
+        this.title = title;
+        this.amount = amount;
+        this.type = type;
+        this.dates = dates;
+        this.draft = draft;
+    }
+
+    public Contract getContract() {
+        return contract;
+    }
+
+    public Long getId() {
+        return contract.getId();
+    }
+
+    public int getVersion() {
+        return contract.getVersion();
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAmount() {
+        return amount;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDates() {
+        return dates;
+    }
+
+    public boolean isDraft() {
+        return draft;
+    }
+
+    // Same on screen, whatever contract instance the row was built from
+    boolean hasSameContent(ContractRow other) {
+        return getVersion() == other.getVersion()
+                && draft == other.draft
+                && title.equals(other.title)
+                && amount.equals(other.amount)
+                && type.equals(other.type)
+                && dates.equals(other.dates);
+    }
+
+    // Whether this row still shows contract, so a cached row can be reused for it. A row built
+    // from a summary is not reused for the whole contract or the other way round, because
+    // getContract() must hand out what the list was given
+    boolean isFor(Contract other) {
+        return contract == other
+                || (Objects.equals(contract.getId(), other.getId())
+                && contract.isSummary() == other.isSummary()
+                && contract.getVersion() == other.getVersion()
+                && contract.isFinalized() == other.isFinalized()
+                && Objects.equals(contract.getTitle(), other.getTitle())
+                && Objects.equals(contract.getAmount(), other.getAmount())
+                && Objects.equals(contract.getContractType(), other.getContractType())
+                && Objects.equals(contract.getStartDate(), other.getStartDate())
+                && Objects.equals(contract.getEndDate(), other.getEndDate()));
+    }
+}
@@ -0,0 +1,59 @@
+package co.dtc.fieldwork.pactflow.adapter;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Turns contracts into {@link ContractRow}s, reusing the row built earlier for the same
+ * contract id and version while its displayed fields are unchanged. Not thread-safe: it
+ * owns a NumberFormat and is meant to be used from a single background thread.
+ */
+public class ContractRowFactory {
+    private static final int MAX_CACHED_ROWS = 1000;
+
+    private final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
+    private final Map<Long, ContractRow> cache = new LinkedHashMap<Long, ContractRow>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ContractRow> eldest) {
+            return size() > MAX_CACHED_ROWS;
+        }
+    };
+
+    public List<ContractRow> buildRows(List<Contract> contracts) {
+        List<ContractRow> rows = new ArrayList<>(contracts.size());
+        for (Contract contract : contracts) {
+            if (contract != null) {
+                rows.add(buildRow(contract));
+            }
+        }
+        return rows;
+    }
+
+    public ContractRow buildRow(Contract contract) {
+        Long id = contract.getId();
+        ContractRow cached = id != null ? cache.get(id) : null;
+        if (cached != null && cached.isFor(contract)) {
+            return cached;
+        }
+
+        String amount = contract.getAmount() != null ? currencyFormat.format(contract.getAmount()) : "";
+        String startDate = contract.getStartDate() != null ? contract.getStartDate() : "N/A";
+        String endDate = contract.getEndDate() != null ? contract.getEndDate() : "N/A";
+        ContractRow row = new ContractRow(
+                contract,
+                contract.getTitle() != null ? contract.getTitle() : "No Title",
+                amount,
+                contract.getContractType() != null ? contract.getContractType() : "",
+                startDate + " - " + endDate,
+                !contract.isFinalized());
+        if (id != null) {
+            cache.put(id, row);
+        }
+        return row;
+    }
+}
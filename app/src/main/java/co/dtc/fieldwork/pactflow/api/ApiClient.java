@@ -5,10 +5,28 @@ import android.content.Context;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import co.dtc.fieldwork.pactflow.BuildConfig;
+
 import co.dtc.fieldwork.pactflow.model.BooleanTypeAdapter;
+import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.model.ContractTypeAdapter;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -17,44 +35,153 @@ public class ApiClient {
     // For physical device with USB debugging, use your computer's IP address
     private static final String BASE_URL = "http://192.168.137.229:8484/api/v1/";
 
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024; // 20 MB
+
+    // Single API host: a few warm connections cover the list, detail and outbox calls
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 6;
+    private static final long DNS_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    // Built once and shared; guarded by the ApiClient class lock
     private static Retrofit retrofit = null;
+    private static OkHttpClient okHttpClient = null;
+    private static ContractApiService contractApiService = null;
+    private static Cache cache = null;
+    private static Context appContext = null;
+    private static final NetworkMetricsInterceptor metrics = new NetworkMetricsInterceptor();
+    // Builds the client at startup so Application.onCreate does not wait for it
+    private static final Executor setupExecutor = Executors.newSingleThreadExecutor();
 
-    public static Retrofit getClient() {
+    public static synchronized void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
-            // Create logger
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            if (cache == null && appContext != null) {
+                File cacheDir = new File(appContext.getCacheDir(), HTTP_CACHE_DIR);
+                cache = new Cache(cacheDir, HTTP_CACHE_SIZE);
+            }
+
+
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
 
             // Create OkHttp client
             OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS);
+                    .writeTimeout(30, TimeUnit.SECONDS)
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .dns(new CachingDns(Dns.SYSTEM, DNS_TTL_MILLIS));
 
-            // Add logging interceptor
-            httpClient.addInterceptor(logging);
+            // Gzip large create/update uploads; runs first so the metrics below see wire sizes
+            httpClient.addInterceptor(new GzipRequestInterceptor());
 
-            // Add any other interceptors here (e.g., authentication)
+            // Per-endpoint latency, payload and error metrics, see getNetworkMetrics()
+            httpClient.addInterceptor(metrics);
+
+            // Headers only, and only in debug builds: body logging reads the whole response into
+            // memory first, which defeats streaming the contract list
+            if (BuildConfig.DEBUG) {
+                HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+                logging.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+                httpClient.addInterceptor(logging);
+            }
+
+            // Store responses on disk and revalidate them with If-None-Match
+            if (cache != null) {
+                httpClient.cache(cache);
+                httpClient.addNetworkInterceptor(new CacheRevalidationInterceptor());
+            }
 
-            // Gson with custom date format and type adapters
-            Gson gson = new GsonBuilder()
-                    .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
-                    .registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
-                    .registerTypeAdapter(boolean.class, new BooleanTypeAdapter())
-                    .create();
+            // Add any other interceptors here (e.g., authentication)
 
+            okHttpClient = httpClient.build();
+            Gson gson = createGson();
 
             // Create Retrofit instance
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
+                    .addConverterFactory(StreamingContractConverterFactory.create(gson))
                     .addConverterFactory(GsonConverterFactory.create(gson))
-                    .client(httpClient.build())
+                    .client(okHttpClient)
                     .build();
         }
         return retrofit;
     }
 
-    public static ContractApiService getContractApiService() {
-        return getClient().create(ContractApiService.class);
+    // Gson with custom date format and type adapters
+    public static Gson createGson() {
+        return new GsonBuilder()
+                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
+                .registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
+                .registerTypeAdapter(boolean.class, new BooleanTypeAdapter())
+                .registerTypeAdapter(Contract.class, new ContractTypeAdapter())
+                .create();
+    }
+
+    public static HttpCacheStats getCacheStats() {
+        if (cache == null) {
+            return new HttpCacheStats(0, 0, 0, 0);
+        }
+        long size;
+        try {
+            size = cache.size();
+        } catch (IOException e) {
+            size = -1;
+        }
+        return new HttpCacheStats(cache.requestCount(), cache.networkCount(), cache.hitCount(), size);
+    }
+
+    public static List<EndpointMetrics> getNetworkMetrics() {
+        return metrics.snapshot();
+    }
+
+    public static synchronized ContractApiService getContractApiService() {
+        if (contractApiService == null) {
+            contractApiService = getClient().create(ContractApiService.class);
+        }
+        return contractApiService;
+    }
+
+    // Builds the client and opens a pooled connection to the API host in the background, so
+    // the first real request skips the setup, DNS and the TCP/TLS handshake
+    public static void warmUp() {
+        setupExecutor.execute(ApiClient::openConnection);
+    }
+
+    private static void openConnection() {
+        getClient();
+        OkHttpClient warmUpClient;
+        synchronized (ApiClient.class) {
+            // Same pool and dispatcher, but no cache, metrics or logging for this probe
+            OkHttpClient.Builder builder = okHttpClient.newBuilder().cache(null);
+            builder.interceptors().clear();
+            builder.networkInterceptors().clear();
+            warmUpClient = builder.build();
+        }
+        Request request = new Request.Builder()
+                .url(BASE_URL)
+                .head()
+                .build();
+        warmUpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (AppLog.DEBUG) {
+                    AppLog.d("ApiClient", "Connection warm-up failed: " + e.getMessage());
+                }
+            }
+        });
     }
 }
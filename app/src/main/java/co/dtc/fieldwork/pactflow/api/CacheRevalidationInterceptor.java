@@ -0,0 +1,30 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that lets the HTTP cache store GET responses carrying an ETag
+ * but no caching headers. Marking them {@code no-cache} makes OkHttp keep the body and
+ * revalidate it with If-None-Match on every request, so unchanged data comes back as 304.
+ */
+public class CacheRevalidationInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        if ("GET".equals(request.method())
+                && response.header("ETag") != null
+                && response.header("Cache-Control") == null) {
+            return response.newBuilder()
+                    .header("Cache-Control", "no-cache")
+                    .removeHeader("Pragma")
+                    .build();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,54 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Dns;
+
+/**
+ * Keeps resolved addresses for a fixed time so new connections to the API host skip the
+ * resolver. When a lookup fails, e.g. on a flaky field connection, the last known addresses
+ * are used instead of failing the request.
+ */
+public class CachingDns implements Dns {
+    private final Dns delegate;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CachingDns(Dns delegate, long ttlMillis) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        Entry entry = entries.get(hostname);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.resolvedAt < ttlMillis) {
+            return entry.addresses;
+        }
+        try {
+            List<InetAddress> addresses = delegate.lookup(hostname);
+            entries.put(hostname, new Entry(addresses, now));
+            return addresses;
+        } catch (UnknownHostException e) {
+            if (entry != null) {
+                return entry.addresses;
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        final List<InetAddress> addresses;
+        final long resolvedAt;
+
+        Entry(List<InetAddress> addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
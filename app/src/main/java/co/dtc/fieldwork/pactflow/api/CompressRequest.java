@@ -0,0 +1,15 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link ContractApiService} method whose request body may be sent gzip-compressed.
+ * See {@link GzipRequestInterceptor}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CompressRequest {
+}
@@ -2,7 +2,11 @@ package co.dtc.fieldwork.pactflow.api;
 
 import java.util.List;
 
+import co.dtc.fieldwork.pactflow.api.request.ContractBatchRequest;
 import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.api.response.ContractBatchResult;
+import co.dtc.fieldwork.pactflow.api.response.ContractChanges;
+import co.dtc.fieldwork.pactflow.api.response.PageResponse;
 import co.dtc.fieldwork.pactflow.model.Contract;
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -11,17 +15,45 @@ import retrofit2.http.GET;
 import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface ContractApiService {
     @GET("contracts")
     Call<ApiResponse<List<Contract>>> getAllContracts();
 
+    // Same payload as getAllContracts, read incrementally off the wire
+    @Streaming
+    @GET("contracts")
+    Call<ContractStream> streamAllContracts();
+
+    // Null filter arguments are omitted from the query; the cursor is only valid for the same filter.
+    // fields is a comma-separated projection, null returns whole contracts
+    @GET("contracts/page")
+    Call<ApiResponse<PageResponse<Contract>>> getContractsPage(
+            @Query("cursor") String cursor,
+            @Query("limit") int limit,
+            @Query("fields") String fields,
+            @Query("type") String contractType,
+            @Query("finalized") Boolean finalized,
+            @Query("from") String fromDate,
+            @Query("to") String toDate,
+            @Query("minAmount") Double minAmount,
+            @Query("maxAmount") Double maxAmount,
+            @Query("sort") String sort
+    );
+
+    @GET("contracts/changes")
+    Call<ApiResponse<ContractChanges>> getContractChanges(@Query("since") String since);
+
     @GET("contracts/{id}")
     Call<ApiResponse<Contract>> getContractById(@Path("id") Long id);
 
+    @CompressRequest
     @POST("contracts")
     Call<ApiResponse<Contract>> createContract(@Body Contract contract);
 
+    @CompressRequest
     @PUT("contracts/{id}")
     Call<ApiResponse<Contract>> updateContract(
             @Path("id") Long id,
@@ -30,4 +62,9 @@ public interface ContractApiService {
 
     @DELETE("contracts/{id}")
     Call<ApiResponse<Void>> deleteContract(@Path("id") Long id);
+
+    // Applies several create/update/delete operations in one round trip, one result per operation
+    @CompressRequest
+    @POST("contracts/batch")
+    Call<ApiResponse<List<ContractBatchResult>>> batchContracts(@Body ContractBatchRequest request);
 }
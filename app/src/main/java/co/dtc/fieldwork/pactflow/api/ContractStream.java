@@ -0,0 +1,97 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+import okhttp3.ResponseBody;
+
+/**
+ * Incrementally reads the {@code data} array of an {@code ApiResponse<List<Contract>>}
+ * straight from the response body, so a large list never has to be held in memory as a
+ * whole. Reads block on the network and must happen off the main thread.
+ */
+public class ContractStream implements Closeable {
+    private final ResponseBody body;
+    private final JsonReader reader;
+    private final TypeAdapter<Contract> adapter;
+    private String message;
+    private String responseCode;
+    private boolean finished = false;
+
+    ContractStream(Gson gson, ResponseBody body) throws IOException {
+        this.body = body;
+        this.adapter = gson.getAdapter(Contract.class);
+        this.reader = gson.newJsonReader(body.charStream());
+
+        // Read envelope fields up to the start of the data array
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("data".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                return;
+            } else if ("message".equals(name)) {
+                message = readNullableString();
+            } else if ("responseCode".equals(name)) {
+                responseCode = readNullableString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        finished = true;
+    }
+
+    // Only populated when the server writes these fields before "data"
+    public String getMessage() {
+        return message;
+    }
+
+    public String getResponseCode() {
+        return responseCode;
+    }
+
+    /** Returns up to {@code maxSize} contracts, or an empty list once the array is exhausted. */
+    public List<Contract> nextChunk(int maxSize) throws IOException {
+        if (finished) {
+            return Collections.emptyList();
+        }
+        List<Contract> chunk = new ArrayList<>(maxSize);
+        while (chunk.size() < maxSize && reader.hasNext()) {
+            Contract contract = adapter.read(reader);
+            if (contract != null) {
+                chunk.add(contract);
+            }
+        }
+        if (!reader.hasNext()) {
+            reader.endArray();
+            finished = true;
+        }
+        return chunk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            body.close();
+        }
+    }
+
+    private String readNullableString() throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+}
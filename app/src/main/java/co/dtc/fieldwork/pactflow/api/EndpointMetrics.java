@@ -0,0 +1,77 @@
+package co.dtc.fieldwork.pactflow.api;
+
+public class EndpointMetrics {
+    private final String endpoint;
+    private final int requestCount;
+    private final int errorCount;
+    private final long p50Millis;
+    private final long p95Millis;
+    private final long p99Millis;
+    private final long requestBytes;
+    private final long responseBytes;
+
+    public EndpointMetrics(String endpoint, int requestCount, int errorCount,
+                           long p50Millis, long p95Millis, long p99Millis,
+                           long requestBytes, long responseBytes) {
+        this.endpoint = endpoint;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+
+    // ContractApiService method name, e.g. "getContractById"
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    // Failed calls and responses with a 4xx or 5xx status
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public double getErrorRate() {
+        return requestCount == 0 ? 0 : (double) errorCount / requestCount;
+    }
+
+    // Latency percentiles over the most recent calls, measured until the headers arrive
+    public long getP50Millis() {
+        return p50Millis;
+    }
+
+    public long getP95Millis() {
+        return p95Millis;
+    }
+
+    public long getP99Millis() {
+        return p99Millis;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    // Body bytes actually read by the app, so streamed responses count as they are consumed
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointMetrics{endpoint=" + endpoint
+                + ", requests=" + requestCount
+                + ", errors=" + errorCount
+                + ", p50=" + p50Millis + "ms"
+                + ", p95=" + p95Millis + "ms"
+                + ", p99=" + p99Millis + "ms"
+                + ", sent=" + requestBytes
+                + ", received=" + responseBytes + "}";
+    }
+}
@@ -0,0 +1,79 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Invocation;
+
+import co.dtc.fieldwork.pactflow.utils.AppLog;
+
+/**
+ * Gzips request bodies of endpoints annotated with {@link CompressRequest} once they exceed
+ * a size threshold. If the server answers 415 Unsupported Media Type, the request is resent
+ * uncompressed and compression stays off for this process, unless that 415 lists gzip in its
+ * Accept-Encoding and so was about something else. Accept-Encoding on other responses is ignored.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+    // Below this the gzip header and CPU time outweigh the saving
+    private static final long MIN_COMPRESS_BYTES = 1024;
+
+    private volatile boolean serverRejectsGzip = false;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (serverRejectsGzip
+                || body == null
+                || request.header("Content-Encoding") != null
+                || !isOptedIn(request)
+                || body.contentLength() < MIN_COMPRESS_BYTES) {
+            return chain.proceed(request);
+        }
+
+        RequestBody compressed = gzip(body);
+        if (compressed.contentLength() >= body.contentLength()) {
+            return chain.proceed(request);
+        }
+
+        Response response = chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), compressed)
+                .build());
+        if (response.code() != 415 || acceptsGzip(response)) {
+            return response;
+        }
+        AppLog.w("GzipRequestInterceptor", "Server rejected gzip request bodies, sending uncompressed");
+        serverRejectsGzip = true;
+        // Nothing was applied, so the original body can be sent again
+        response.close();
+        return chain.proceed(request);
+    }
+
+    private static boolean isOptedIn(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(CompressRequest.class);
+    }
+
+    // A 415 may list the content codings the server does accept (RFC 7694); without the header
+    // the coding is assumed to be the problem
+    private static boolean acceptsGzip(Response response) {
+        String accepted = response.header("Accept-Encoding");
+        return accepted != null && accepted.toLowerCase().contains("gzip");
+    }
+
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer buffer = new Buffer();
+        BufferedSink sink = Okio.buffer(new GzipSink(buffer));
+        body.writeTo(sink);
+        sink.close();
+        return RequestBody.create(buffer.readByteString(), body.contentType());
+    }
+}
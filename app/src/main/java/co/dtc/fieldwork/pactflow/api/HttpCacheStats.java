@@ -0,0 +1,45 @@
+package co.dtc.fieldwork.pactflow.api;
+
+public class HttpCacheStats {
+    private final int requestCount;
+    private final int networkCount;
+    private final int hitCount;
+    private final long sizeBytes;
+
+    public HttpCacheStats(int requestCount, int networkCount, int hitCount, long sizeBytes) {
+        this.requestCount = requestCount;
+        this.networkCount = networkCount;
+        this.hitCount = hitCount;
+        this.sizeBytes = sizeBytes;
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public int getNetworkCount() {
+        return networkCount;
+    }
+
+    // Responses served from the cache, including those revalidated with a 304
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return requestCount - hitCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpCacheStats{requests=" + requestCount
+                + ", network=" + networkCount
+                + ", hits=" + hitCount
+                + ", misses=" + getMissCount()
+                + ", size=" + sizeBytes + "}";
+    }
+}
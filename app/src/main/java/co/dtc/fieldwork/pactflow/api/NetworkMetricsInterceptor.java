@@ -0,0 +1,135 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Invocation;
+
+/**
+ * Application interceptor that records latency, payload sizes and errors per
+ * {@link ContractApiService} endpoint. Latency percentiles are computed from a bounded
+ * window of recent samples, so recording stays O(1) and memory stays flat.
+ */
+public class NetworkMetricsInterceptor implements Interceptor {
+    private static final int MAX_SAMPLES = 512;
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        final Recorder recorder = recorderFor(request);
+
+        long requestBytes = request.body() != null ? request.body().contentLength() : 0;
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            recorder.record((System.nanoTime() - start) / 1_000_000, requestBytes, true);
+            throw e;
+        }
+        recorder.record((System.nanoTime() - start) / 1_000_000, requestBytes, response.code() >= 400);
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        // Count bytes as the caller reads them rather than buffering the body here
+        ForwardingSource counting = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    recorder.addResponseBytes(read);
+                }
+                return read;
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(counting), body.contentType(), body.contentLength()))
+                .build();
+    }
+
+    public List<EndpointMetrics> snapshot() {
+        List<EndpointMetrics> metrics = new ArrayList<>();
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            metrics.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        return metrics;
+    }
+
+    public void reset() {
+        recorders.clear();
+    }
+
+    private Recorder recorderFor(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        String endpoint = invocation != null
+                ? invocation.method().getName()
+                : request.method() + " " + request.url().encodedPath();
+        Recorder recorder = recorders.get(endpoint);
+        if (recorder == null) {
+            Recorder created = new Recorder();
+            recorder = recorders.putIfAbsent(endpoint, created);
+            if (recorder == null) {
+                recorder = created;
+            }
+        }
+        return recorder;
+    }
+
+    private static class Recorder {
+        private final long[] latencies = new long[MAX_SAMPLES];
+        private int sampleCount = 0;
+        private int nextSample = 0;
+        private int requestCount = 0;
+        private int errorCount = 0;
+        private long requestBytes = 0;
+        private long responseBytes = 0;
+
+        synchronized void record(long latencyMillis, long sentBytes, boolean error) {
+            latencies[nextSample] = latencyMillis;
+            nextSample = (nextSample + 1) % MAX_SAMPLES;
+            sampleCount = Math.min(sampleCount + 1, MAX_SAMPLES);
+            requestCount++;
+            if (error) {
+                errorCount++;
+            }
+            if (sentBytes > 0) {
+                requestBytes += sentBytes;
+            }
+        }
+
+        synchronized void addResponseBytes(long bytes) {
+            responseBytes += bytes;
+        }
+
+        synchronized EndpointMetrics snapshot(String endpoint) {
+            long[] sorted = Arrays.copyOf(latencies, sampleCount);
+            Arrays.sort(sorted);
+            return new EndpointMetrics(endpoint, requestCount, errorCount,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    requestBytes, responseBytes);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Hands {@link ContractStream} responses to the caller with the body still open instead of
+ * parsing them up front. Must be registered before the regular Gson converter.
+ */
+public class StreamingContractConverterFactory extends Converter.Factory {
+    private final Gson gson;
+
+    private StreamingContractConverterFactory(Gson gson) {
+        this.gson = gson;
+    }
+
+    public static StreamingContractConverterFactory create(Gson gson) {
+        return new StreamingContractConverterFactory(gson);
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type != ContractStream.class) {
+            return null;
+        }
+        return (Converter<ResponseBody, ContractStream>) body -> {
+            try {
+                return new ContractStream(gson, body);
+            } catch (IOException | RuntimeException e) {
+                body.close();
+                throw e;
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package co.dtc.fieldwork.pactflow.api.request;
+
+import java.util.List;
+
+public class ContractBatchRequest {
+    private List<ContractOperation> operations;
+
+    public ContractBatchRequest(List<ContractOperation> operations) {
+        this.operations = operations;
+    }
+
+    public List<ContractOperation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<ContractOperation> operations) {
+        this.operations = operations;
+    }
+}
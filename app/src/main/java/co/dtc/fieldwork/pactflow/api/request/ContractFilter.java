@@ -0,0 +1,220 @@
+package co.dtc.fieldwork.pactflow.api.request;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Server-side filter and sort order for the contract list endpoint. Unset (null) criteria are
+ * left out of the request; dates use the same format as {@code Contract#getStartDate()}.
+ * {@link #matches} and {@link #comparator} apply the same filter to contracts held locally.
+ */
+public class ContractFilter {
+    public enum Sort {
+        // The contract's timestamp field, the same key the store and comparator sort on
+        NEWEST("timestamp:desc"),
+        TITLE("title:asc"),
+        AMOUNT_ASC("amount:asc"),
+        AMOUNT_DESC("amount:desc"),
+        START_DATE("startDate:asc"),
+        END_DATE("endDate:asc");
+
+        private final String value;
+
+        Sort(String value) {
+            this.value = value;
+        }
+
+        // Value of the sort query parameter
+        public String getValue() {
+            return value;
+        }
+    }
+
+    // SQLite's NOCASE collation: only ASCII letters fold, everything else compares by code point
+    // as the store's UTF-8 bytes do
+    private static final Comparator<String> NOCASE = (a, b) -> {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                int fa = ca >= 'A' && ca <= 'Z' ? ca + ('a' - 'A') : ca;
+                int fb = cb >= 'A' && cb <= 'Z' ? cb + ('a' - 'A') : cb;
+                if (fa != fb) {
+                    return Integer.compare(fa, fb);
+                }
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    };
+
+    private String contractType;
+    private Boolean finalized;
+    // Contracts whose start..end period overlaps [fromDate, toDate]
+    private String fromDate;
+    private String toDate;
+    private Double minAmount;
+    private Double maxAmount;
+    private Sort sort;
+
+    public ContractFilter() {
+    }
+
+    public ContractFilter(ContractFilter other) {
+        this.contractType = other.contractType;
+        this.finalized = other.finalized;
+        this.fromDate = other.fromDate;
+        this.toDate = other.toDate;
+        this.minAmount = other.minAmount;
+        this.maxAmount = other.maxAmount;
+        this.sort = other.sort;
+    }
+
+    public static ContractFilter drafts() {
+        ContractFilter filter = new ContractFilter();
+        filter.setFinalized(false);
+        filter.setSort(Sort.NEWEST);
+        return filter;
+    }
+
+    public String getContractType() {
+        return contractType;
+    }
+
+    public void setContractType(String contractType) {
+        this.contractType = contractType;
+    }
+
+    public Boolean getFinalized() {
+        return finalized;
+    }
+
+    public void setFinalized(Boolean finalized) {
+        this.finalized = finalized;
+    }
+
+    public String getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(String fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public String getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(String toDate) {
+        this.toDate = toDate;
+    }
+
+    public Double getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(Double minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public Double getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(Double maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    public String getSortValue() {
+        return sort != null ? sort.getValue() : null;
+    }
+
+    // True when no criterion or sort is set, i.e. the full list in server order
+    public boolean isEmpty() {
+        return contractType == null && finalized == null && fromDate == null && toDate == null
+                && minAmount == null && maxAmount == null && sort == null;
+    }
+
+    // A missing start or end date leaves that side of the contract's period open
+    public boolean matches(Contract contract) {
+        if (contractType != null && !contractType.equals(contract.getContractType())) {
+            return false;
+        }
+        if (finalized != null && finalized != contract.isFinalized()) {
+            return false;
+        }
+        if (toDate != null && contract.getStartDate() != null && contract.getStartDate().compareTo(toDate) > 0) {
+            return false;
+        }
+        if (fromDate != null && contract.getEndDate() != null && contract.getEndDate().compareTo(fromDate) < 0) {
+            return false;
+        }
+        Double amount = contract.getAmount();
+        if (minAmount != null && (amount == null || amount < minAmount)) {
+            return false;
+        }
+        return maxAmount == null || (amount != null && amount <= maxAmount);
+    }
+
+    // The sort order as ContractStore applies it: nulls first ascending, ties broken by id
+    public Comparator<Contract> comparator() {
+        Comparator<Contract> byId = Comparator.comparing(Contract::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+        if (sort == null) {
+            return byId;
+        }
+        Comparator<Contract> order;
+        switch (sort) {
+            case NEWEST:
+                order = Comparator.comparing(Contract::getTimestamp, Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed();
+                break;
+            case TITLE:
+                order = Comparator.comparing(Contract::getTitle, Comparator.nullsFirst(NOCASE));
+                break;
+            case AMOUNT_ASC:
+                order = Comparator.comparing(Contract::getAmount, Comparator.nullsFirst(Comparator.<Double>naturalOrder()));
+                break;
+            case AMOUNT_DESC:
+                order = Comparator.comparing(Contract::getAmount, Comparator.nullsFirst(Comparator.<Double>naturalOrder())).reversed();
+                break;
+            case START_DATE:
+                order = Comparator.comparing(Contract::getStartDate, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                break;
+            default:
+                order = Comparator.comparing(Contract::getEndDate, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                break;
+        }
+        return order.thenComparing(byId);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ContractFilter)) return false;
+        ContractFilter that = (ContractFilter) o;
+        return Objects.equals(contractType, that.contractType)
+                && Objects.equals(finalized, that.finalized)
+                && Objects.equals(fromDate, that.fromDate)
+                && Objects.equals(toDate, that.toDate)
+                && Objects.equals(minAmount, that.minAmount)
+                && Objects.equals(maxAmount, that.maxAmount)
+                && sort == that.sort;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(contractType, finalized, fromDate, toDate, minAmount, maxAmount, sort);
+    }
+}
@@ -0,0 +1,58 @@
+package co.dtc.fieldwork.pactflow.api.request;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+public class ContractOperation {
+    public static final String CREATE = "CREATE";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+
+    private String type;
+    private Long id;
+    private Contract contract;
+
+    public ContractOperation() {
+    }
+
+    private ContractOperation(String type, Long id, Contract contract) {
+        this.type = type;
+        this.id = id;
+        this.contract = contract;
+    }
+
+    public static ContractOperation create(Contract contract) {
+        return new ContractOperation(CREATE, null, contract);
+    }
+
+    public static ContractOperation update(Long id, Contract contract) {
+        return new ContractOperation(UPDATE, id, contract);
+    }
+
+    public static ContractOperation delete(Long id) {
+        return new ContractOperation(DELETE, id, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Contract getContract() {
+        return contract;
+    }
+
+    public void setContract(Contract contract) {
+        this.contract = contract;
+    }
+}
@@ -0,0 +1,48 @@
+package co.dtc.fieldwork.pactflow.api.response;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+public class ContractBatchResult {
+    // Position of the operation in the request
+    private int index;
+    // HTTP-style status of this operation alone
+    private int status;
+    private String message;
+    private Contract data;
+
+    public boolean isSuccessful() {
+        return status >= 200 && status < 300;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Contract getData() {
+        return data;
+    }
+
+    public void setData(Contract data) {
+        this.data = data;
+    }
+}
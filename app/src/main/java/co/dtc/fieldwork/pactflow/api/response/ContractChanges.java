@@ -0,0 +1,38 @@
+package co.dtc.fieldwork.pactflow.api.response;
+
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+public class ContractChanges {
+    // Contracts created or modified after the requested watermark
+    private List<Contract> upserts;
+    // Ids of contracts deleted after the requested watermark
+    private List<Long> deletedIds;
+    // Position to send as "since" on the next sync
+    private String watermark;
+
+    public List<Contract> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<Contract> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<Long> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+}
@@ -0,0 +1,25 @@
+package co.dtc.fieldwork.pactflow.api.response;
+
+import java.util.List;
+
+public class PageResponse<T> {
+    private List<T> items;
+    // Opaque cursor for the next page, null when this is the last page
+    private String nextCursor;
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,405 @@
+package co.dtc.fieldwork.pactflow.db;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.request.ContractOperation;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Durable queue of contract writes that have not reached the server yet. Writes to the
+ * same contract are folded together so a drain sends at most one operation per contract.
+ * Contracts created offline get a negative local id until the server assigns a real one.
+ * Every rewrite of a queued payload bumps the entry's revision, so a drain only removes what
+ * it actually sent. All methods block on disk I/O and must be called off the main thread.
+ */
+public class ContractOutbox {
+    private static final String[] ENTRY_COLUMNS = {"id", "type", "contract_id", "payload", "base", "revision", "conflict"};
+
+    private final ContractStore store;
+    private final Gson gson = ApiClient.createGson();
+
+    public ContractOutbox(ContractStore store) {
+        this.store = store;
+    }
+
+    public static boolean isLocalId(Long contractId) {
+        return contractId != null && contractId < 0;
+    }
+
+    static long localIdFor(long entryId) {
+        return -entryId;
+    }
+
+    // Queues a create and returns the local id the contract is shown under meanwhile
+    public long enqueueCreate(Contract contract) {
+        ContentValues values = new ContentValues();
+        values.put("type", ContractOperation.CREATE);
+        values.put("payload", toPayload(contract));
+        long entryId = store.getWritableDatabase().insertOrThrow(ContractStore.TABLE_OUTBOX, null, values);
+        return localIdFor(entryId);
+    }
+
+    // base is the stored contract the edit started from, kept to merge a version conflict later
+    public void enqueueUpdate(Long contractId, Contract contract, Contract base) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (isLocalId(contractId)) {
+                // Not on the server yet, so the queued create simply carries the new values
+                db.execSQL("UPDATE " + ContractStore.TABLE_OUTBOX + " SET payload = ?, revision = revision + 1"
+                                + " WHERE id = ? AND type = ?",
+                        new Object[]{toPayload(contract), -contractId, ContractOperation.CREATE});
+            } else {
+                // A folded edit keeps its place in the queue, or stays parked with a conflict,
+                // and still merges against the version the first edit started from
+                long entryId = findEntry(db, contractId, ContractOperation.UPDATE);
+                if (entryId >= 0) {
+                    db.execSQL("UPDATE " + ContractStore.TABLE_OUTBOX + " SET payload = ?, revision = revision + 1"
+                                    + " WHERE id = ?",
+                            new Object[]{gson.toJson(contract), entryId});
+                } else {
+                    ContentValues values = new ContentValues();
+                    values.put("type", ContractOperation.UPDATE);
+                    values.put("contract_id", contractId);
+                    values.put("payload", gson.toJson(contract));
+                    values.put("base", base != null ? gson.toJson(base) : null);
+                    db.insertOrThrow(ContractStore.TABLE_OUTBOX, null, values);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Rewrites a queued update with a merge against the newer server version {@code base} and
+     * stores the merge. Does nothing and returns false when the entry was edited again or
+     * dropped since it was peeked; the newer payload is sent as it is.
+     */
+    public boolean replaceUpdate(OutboxEntry entry, Contract merged, Contract base) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (getRevision(db, entry.getId()) != entry.getRevision()) {
+                return false;
+            }
+            db.execSQL("UPDATE " + ContractStore.TABLE_OUTBOX + " SET payload = ?, base = ?, revision = revision + 1"
+                            + " WHERE id = ?",
+                    new Object[]{gson.toJson(merged), base != null ? gson.toJson(base) : null, entry.getId()});
+            store.upsert(Collections.singletonList(merged));
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Records that {@code entry} reached the server, which now holds {@code saved}, and returns
+     * what the store holds for the contract afterwards (null when it is gone). Writes queued
+     * while the entry was in flight are kept:
+     * <ul>
+     * <li>an edit to a contract being created becomes an update of the server copy,</li>
+     * <li>a delete of a contract being created becomes a delete of the server copy,</li>
+     * <li>a newer edit of an updated contract is rebased onto the saved version.</li>
+     * </ul>
+     */
+    public Contract complete(OutboxEntry entry, Contract saved) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Contract stored = null;
+            long revision = getRevision(db, entry.getId());
+            if (ContractOperation.DELETE.equals(entry.getType())) {
+                removeEntry(db, entry.getId());
+            } else if (ContractOperation.CREATE.equals(entry.getType())) {
+                store.delete(Collections.singletonList(entry.getLocalId()));
+                stored = completeCreate(db, entry, revision, saved);
+            } else {
+                stored = completeUpdate(db, entry, revision, saved);
+            }
+            db.setTransactionSuccessful();
+            return stored;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Contract completeCreate(SQLiteDatabase db, OutboxEntry entry, long revision, Contract saved) {
+        if (saved == null || saved.getId() == null) {
+            removeEntry(db, entry.getId());
+            return null;
+        }
+        if (revision < 0) {
+            // Deleted while the create was in flight; the server copy has to go too
+            ContentValues values = new ContentValues();
+            values.put("type", ContractOperation.DELETE);
+            values.put("contract_id", saved.getId());
+            db.insertOrThrow(ContractStore.TABLE_OUTBOX, null, values);
+            return null;
+        }
+        if (revision != entry.getRevision()) {
+            // Edited while the create was in flight; send the edit as an update of the new contract
+            Contract edited = readPayload(db, entry.getId());
+            edited.setId(saved.getId());
+            edited.setVersion(saved.getVersion());
+            ContentValues values = new ContentValues();
+            values.put("type", ContractOperation.UPDATE);
+            values.put("contract_id", saved.getId());
+            values.put("payload", gson.toJson(edited));
+            values.put("base", gson.toJson(saved));
+            db.update(ContractStore.TABLE_OUTBOX, values, "id = ?", new String[]{String.valueOf(entry.getId())});
+            store.upsert(Collections.singletonList(edited));
+            return edited;
+        }
+        removeEntry(db, entry.getId());
+        store.upsert(Collections.singletonList(saved));
+        return saved;
+    }
+
+    private Contract completeUpdate(SQLiteDatabase db, OutboxEntry entry, long revision, Contract saved) {
+        if (revision < 0) {
+            // Deleted while the update was in flight, a queued delete follows
+            return null;
+        }
+        if (revision != entry.getRevision()) {
+            // Edited again meanwhile; the newer edit now starts from the saved version
+            Contract edited = readPayload(db, entry.getId());
+            if (saved != null) {
+                edited.setVersion(saved.getVersion());
+            }
+            ContentValues values = new ContentValues();
+            values.put("payload", gson.toJson(edited));
+            values.put("base", saved != null ? gson.toJson(saved) : null);
+            db.update(ContractStore.TABLE_OUTBOX, values, "id = ?", new String[]{String.valueOf(entry.getId())});
+            store.upsert(Collections.singletonList(edited));
+            return edited;
+        }
+        removeEntry(db, entry.getId());
+        if (saved == null) {
+            return store.getById(entry.getContractId());
+        }
+        store.upsert(Collections.singletonList(saved));
+        return saved;
+    }
+
+    // Drops an entry the server will never accept, along with the placeholder of a create
+    public void discard(OutboxEntry entry) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            removeEntry(db, entry.getId());
+            if (ContractOperation.CREATE.equals(entry.getType())) {
+                store.delete(Collections.singletonList(entry.getLocalId()));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void enqueueDelete(Long contractId) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (isLocalId(contractId)) {
+                // Created and deleted while offline: nothing ever needs to be sent
+                db.delete(ContractStore.TABLE_OUTBOX, "id = ? AND type = ?",
+                        new String[]{String.valueOf(-contractId), ContractOperation.CREATE});
+            } else {
+                db.delete(ContractStore.TABLE_OUTBOX, "contract_id = ? AND type = ?",
+                        new String[]{String.valueOf(contractId), ContractOperation.UPDATE});
+                ContentValues values = new ContentValues();
+                values.put("type", ContractOperation.DELETE);
+                values.put("contract_id", contractId);
+                db.insertOrThrow(ContractStore.TABLE_OUTBOX, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Oldest entries first, so writes reach the server in the order they were made; parked conflicts are left out
+    public List<OutboxEntry> peek(int limit) {
+        Cursor cursor = store.getReadableDatabase().query(ContractStore.TABLE_OUTBOX, ENTRY_COLUMNS,
+                "conflict IS NULL", null, null, null, "id", String.valueOf(limit));
+        try {
+            return readEntries(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Parks a queued update that lost against {@code server} and could not be merged. It is not
+     * sent again until {@link #resolveConflict} settles it, and the store keeps its local values
+     * meanwhile. Later edits of the contract are folded into the parked entry.
+     */
+    public void markConflict(OutboxEntry entry, Contract server) {
+        ContentValues values = new ContentValues();
+        values.put("conflict", gson.toJson(server));
+        store.getWritableDatabase().update(ContractStore.TABLE_OUTBOX, values,
+                "id = ?", new String[]{String.valueOf(entry.getId())});
+    }
+
+    // Oldest parked conflict, or null when none is waiting for the user
+    public OutboxEntry peekConflict() {
+        Cursor cursor = store.getReadableDatabase().query(ContractStore.TABLE_OUTBOX, ENTRY_COLUMNS,
+                "conflict IS NOT NULL", null, null, null, "id", "1");
+        try {
+            List<OutboxEntry> entries = readEntries(cursor);
+            return entries.isEmpty() ? null : entries.get(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Settles the parked conflict of {@code contractId}. With {@code resolved} the update is
+     * queued again with those values on top of the server copy; with null the server copy
+     * replaces the local values. Returns what the store holds afterwards, or null when no
+     * conflict was parked for the contract.
+     */
+    public Contract resolveConflict(long contractId, Contract resolved) {
+        SQLiteDatabase db = store.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.query(ContractStore.TABLE_OUTBOX, new String[]{"id", "conflict"},
+                    "contract_id = ? AND type = ? AND conflict IS NOT NULL",
+                    new String[]{String.valueOf(contractId), ContractOperation.UPDATE}, null, null, null);
+            long entryId;
+            Contract server;
+            try {
+                if (!cursor.moveToFirst()) {
+                    return null;
+                }
+                entryId = cursor.getLong(0);
+                server = gson.fromJson(cursor.getString(1), Contract.class);
+            } finally {
+                cursor.close();
+            }
+
+            Contract stored;
+            if (resolved != null) {
+                db.execSQL("UPDATE " + ContractStore.TABLE_OUTBOX + " SET payload = ?, base = ?, conflict = NULL,"
+                                + " revision = revision + 1 WHERE id = ?",
+                        new Object[]{gson.toJson(resolved), gson.toJson(server), entryId});
+                stored = resolved;
+            } else {
+                removeEntry(db, entryId);
+                stored = server;
+            }
+            store.upsert(Collections.singletonList(stored));
+            db.setTransactionSuccessful();
+            return stored;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<OutboxEntry> readEntries(Cursor cursor) {
+        List<OutboxEntry> entries = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            // Column order matches ENTRY_COLUMNS
+            String payload = cursor.getString(3);
+            String base = cursor.getString(4);
+            String conflict = cursor.getString(6);
+            entries.add(new OutboxEntry(
+                    cursor.getLong(0),
+                    cursor.getString(1),
+                    cursor.isNull(2) ? null : cursor.getLong(2),
+                    payload != null ? gson.fromJson(payload, Contract.class) : null,
+                    base != null ? gson.fromJson(base, Contract.class) : null,
+                    cursor.getLong(5),
+                    conflict != null ? gson.fromJson(conflict, Contract.class) : null));
+        }
+        return entries;
+    }
+
+    // Contracts whose stored row holds queued local values, with offline creates under their local id
+    public Set<Long> getPendingContractIds() {
+        Cursor cursor = store.getReadableDatabase().query(ContractStore.TABLE_OUTBOX,
+                new String[]{"id", "type", "contract_id"}, null, null, null, null, null);
+        try {
+            Set<Long> ids = new HashSet<>();
+            while (cursor.moveToNext()) {
+                if (ContractOperation.CREATE.equals(cursor.getString(1))) {
+                    ids.add(localIdFor(cursor.getLong(0)));
+                } else if (!cursor.isNull(2)) {
+                    ids.add(cursor.getLong(2));
+                }
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Revision of an entry, -1 when it no longer exists
+    private static long getRevision(SQLiteDatabase db, long entryId) {
+        Cursor cursor = db.query(ContractStore.TABLE_OUTBOX, new String[]{"revision"},
+                "id = ?", new String[]{String.valueOf(entryId)}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long findEntry(SQLiteDatabase db, long contractId, String type) {
+        Cursor cursor = db.query(ContractStore.TABLE_OUTBOX, new String[]{"id"},
+                "contract_id = ? AND type = ?", new String[]{String.valueOf(contractId), type},
+                null, null, "id", "1");
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private Contract readPayload(SQLiteDatabase db, long entryId) {
+        Cursor cursor = db.query(ContractStore.TABLE_OUTBOX, new String[]{"payload"},
+                "id = ?", new String[]{String.valueOf(entryId)}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? gson.fromJson(cursor.getString(0), Contract.class) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void removeEntry(SQLiteDatabase db, long entryId) {
+        db.delete(ContractStore.TABLE_OUTBOX, "id = ?", new String[]{String.valueOf(entryId)});
+    }
+
+    // Creates are queued without an id, the server assigns one
+    private String toPayload(Contract contract) {
+        Long previousId = contract.getId();
+        contract.setId(null);
+        String payload = gson.toJson(contract);
+        contract.setId(previousId);
+        return payload;
+    }
+
+    public int size() {
+        Cursor cursor = store.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + ContractStore.TABLE_OUTBOX, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+}
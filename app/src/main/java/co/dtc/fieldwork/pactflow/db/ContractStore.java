@@ -0,0 +1,423 @@
+package co.dtc.fieldwork.pactflow.db;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import co.dtc.fieldwork.pactflow.api.request.ContractFilter;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * On-device copy of the contracts the user can see, used as the source of truth for
+ * the contract list. All methods block on disk I/O and must be called off the main thread.
+ */
+public class ContractStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "pactflow.db";
+    private static final int DATABASE_VERSION = 5;
+
+    private static final String TABLE_CONTRACTS = "contracts";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    static final String TABLE_OUTBOX = "outbox";
+    private static final int MAX_QUERY_PARAMS = 500;
+
+    private static final String COLUMN_ID = "id";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_AMOUNT = "amount";
+    private static final String COLUMN_WORKFLOW_ID = "workflow_id";
+    private static final String COLUMN_CONTRACT_TYPE = "contract_type";
+    private static final String COLUMN_DESCRIPTION = "description";
+    private static final String COLUMN_START_DATE = "start_date";
+    private static final String COLUMN_END_DATE = "end_date";
+    private static final String COLUMN_TEMPLATE = "template";
+    private static final String COLUMN_FINALIZED = "finalized";
+    private static final String COLUMN_VERSION = "version";
+    private static final String COLUMN_TIMESTAMP = "timestamp";
+
+    private static final String[] CONTRACT_COLUMNS = {
+            COLUMN_ID, COLUMN_TITLE, COLUMN_AMOUNT, COLUMN_WORKFLOW_ID, COLUMN_CONTRACT_TYPE,
+            COLUMN_DESCRIPTION, COLUMN_START_DATE, COLUMN_END_DATE, COLUMN_TEMPLATE,
+            COLUMN_FINALIZED, COLUMN_VERSION, COLUMN_TIMESTAMP
+    };
+
+    // Same positions as CONTRACT_COLUMNS with description and template left unread
+    private static final String[] SUMMARY_COLUMNS = {
+            COLUMN_ID, COLUMN_TITLE, COLUMN_AMOUNT, COLUMN_WORKFLOW_ID, COLUMN_CONTRACT_TYPE,
+            "NULL", COLUMN_START_DATE, COLUMN_END_DATE, "NULL",
+            COLUMN_FINALIZED, COLUMN_VERSION, COLUMN_TIMESTAMP
+    };
+
+    private static ContractStore instance = null;
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new ContractStore(context.getApplicationContext());
+        }
+    }
+
+    public static synchronized ContractStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("ContractStore.init() must be called first");
+        }
+        return instance;
+    }
+
+    private ContractStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_CONTRACTS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_TITLE + " TEXT, "
+                + COLUMN_AMOUNT + " REAL, "
+                + COLUMN_WORKFLOW_ID + " INTEGER, "
+                + COLUMN_CONTRACT_TYPE + " TEXT, "
+                + COLUMN_DESCRIPTION + " TEXT, "
+                + COLUMN_START_DATE + " TEXT, "
+                + COLUMN_END_DATE + " TEXT, "
+                + COLUMN_TEMPLATE + " TEXT, "
+                + COLUMN_FINALIZED + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_VERSION + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_TIMESTAMP + " TEXT)");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " (key TEXT PRIMARY KEY, value TEXT)");
+        createOutbox(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Migrate step by step, the outbox holds edits that exist nowhere else
+        if (oldVersion < 2) {
+            createOutbox(db);
+            return;
+        }
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN base TEXT");
+        }
+        if (oldVersion < 4) {
+            db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN revision INTEGER NOT NULL DEFAULT 0");
+        }
+        if (oldVersion < 5) {
+            db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN conflict TEXT");
+        }
+    }
+
+    private static void createOutbox(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "type TEXT NOT NULL, "
+                + "contract_id INTEGER, "
+                + "payload TEXT, "
+                + "base TEXT, "
+                + "revision INTEGER NOT NULL DEFAULT 0, "
+                + "conflict TEXT)");
+        db.execSQL("CREATE INDEX outbox_contract_id ON " + TABLE_OUTBOX + " (contract_id)");
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Up to limit summaries with ids above afterId in id order, for paging by key: rows written
+    // or deleted elsewhere in the list cannot shift the next page
+    public List<Contract> getSummaryPageAfter(long afterId, int limit) {
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, SUMMARY_COLUMNS,
+                COLUMN_ID + " > ?", new String[]{String.valueOf(afterId)}, null, null, COLUMN_ID, String.valueOf(limit));
+        try {
+            return readContracts(cursor, true);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Up to limit summaries with ids below beforeId, still in ascending id order
+    public List<Contract> getSummaryPageBefore(long beforeId, int limit) {
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, SUMMARY_COLUMNS,
+                COLUMN_ID + " < ?", new String[]{String.valueOf(beforeId)}, null, null, COLUMN_ID + " DESC", String.valueOf(limit));
+        try {
+            List<Contract> contracts = readContracts(cursor, true);
+            Collections.reverse(contracts);
+            return contracts;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Up to limit contracts with ids above afterId in id order; unlike offset pages, rows written
+    // between two calls cannot shift an unchanged row out of the walk
+    public List<Contract> getPageAfter(long afterId, int limit) {
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, CONTRACT_COLUMNS,
+                COLUMN_ID + " > ?", new String[]{String.valueOf(afterId)}, null, null, COLUMN_ID, String.valueOf(limit));
+        try {
+            return readContracts(cursor, false);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Summaries matching filter in its sort order, the same rows and order as ContractFilter.matches/comparator
+    public List<Contract> getFilteredSummaryPage(ContractFilter filter, int offset, int limit) {
+        StringBuilder where = new StringBuilder();
+        List<String> args = new ArrayList<>();
+        if (filter.getContractType() != null) {
+            appendCondition(where, COLUMN_CONTRACT_TYPE + " = ?");
+            args.add(filter.getContractType());
+        }
+        if (filter.getFinalized() != null) {
+            appendCondition(where, COLUMN_FINALIZED + (filter.getFinalized() ? " != 0" : " = 0"));
+        }
+        if (filter.getToDate() != null) {
+            appendCondition(where, "(" + COLUMN_START_DATE + " IS NULL OR " + COLUMN_START_DATE + " <= ?)");
+            args.add(filter.getToDate());
+        }
+        if (filter.getFromDate() != null) {
+            appendCondition(where, "(" + COLUMN_END_DATE + " IS NULL OR " + COLUMN_END_DATE + " >= ?)");
+            args.add(filter.getFromDate());
+        }
+        if (filter.getMinAmount() != null) {
+            appendCondition(where, COLUMN_AMOUNT + " >= ?");
+            args.add(String.valueOf(filter.getMinAmount()));
+        }
+        if (filter.getMaxAmount() != null) {
+            appendCondition(where, COLUMN_AMOUNT + " <= ?");
+            args.add(String.valueOf(filter.getMaxAmount()));
+        }
+
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, SUMMARY_COLUMNS,
+                where.length() > 0 ? where.toString() : null, args.toArray(new String[0]),
+                null, null, orderBy(filter.getSort()), offset + "," + limit);
+        try {
+            return readContracts(cursor, true);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void appendCondition(StringBuilder where, String condition) {
+        if (where.length() > 0) {
+            where.append(" AND ");
+        }
+        where.append(condition);
+    }
+
+    private static String orderBy(ContractFilter.Sort sort) {
+        if (sort == null) {
+            return COLUMN_ID;
+        }
+        switch (sort) {
+            case NEWEST:
+                return COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID;
+            case TITLE:
+                return COLUMN_TITLE + " COLLATE NOCASE, " + COLUMN_ID;
+            case AMOUNT_ASC:
+                return COLUMN_AMOUNT + ", " + COLUMN_ID;
+            case AMOUNT_DESC:
+                return COLUMN_AMOUNT + " DESC, " + COLUMN_ID;
+            case START_DATE:
+                return COLUMN_START_DATE + ", " + COLUMN_ID;
+            default:
+                return COLUMN_END_DATE + ", " + COLUMN_ID;
+        }
+    }
+
+    // Summaries without description and template for the given ids in id order; ids that are
+    // not stored are skipped
+    public List<Contract> getSummariesByIds(List<Long> ids) {
+        List<Contract> contracts = new ArrayList<>(ids.size());
+        // Stay well below SQLite's limit on bound parameters
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_PARAMS) {
+            List<Long> chunk = ids.subList(start, Math.min(start + MAX_QUERY_PARAMS, ids.size()));
+            StringBuilder placeholders = new StringBuilder();
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+                args[i] = String.valueOf(chunk.get(i));
+            }
+            Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, SUMMARY_COLUMNS,
+                    COLUMN_ID + " IN (" + placeholders + ")", args, null, null, COLUMN_ID);
+            try {
+                contracts.addAll(readContracts(cursor, true));
+            } finally {
+                cursor.close();
+            }
+        }
+        return contracts;
+    }
+
+    public Contract getById(long id) {
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, CONTRACT_COLUMNS,
+                COLUMN_ID + " = ?", new String[]{String.valueOf(id)}, null, null, null);
+        try {
+            List<Contract> contracts = readContracts(cursor, false);
+            return contracts.isEmpty() ? null : contracts.get(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void upsert(Collection<Contract> contracts) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT OR REPLACE INTO " + TABLE_CONTRACTS + " ("
+                + COLUMN_ID + ", " + COLUMN_TITLE + ", " + COLUMN_AMOUNT + ", " + COLUMN_WORKFLOW_ID + ", "
+                + COLUMN_CONTRACT_TYPE + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_START_DATE + ", "
+                + COLUMN_END_DATE + ", " + COLUMN_TEMPLATE + ", " + COLUMN_FINALIZED + ", "
+                + COLUMN_VERSION + ", " + COLUMN_TIMESTAMP + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (Contract contract : contracts) {
+                // Contracts the server has not assigned an id to yet cannot be stored
+                if (contract == null || contract.getId() == null) {
+                    continue;
+                }
+                statement.clearBindings();
+                statement.bindLong(1, contract.getId());
+                bindString(statement, 2, contract.getTitle());
+                if (contract.getAmount() != null) {
+                    statement.bindDouble(3, contract.getAmount());
+                }
+                if (contract.getWorkflowId() != null) {
+                    statement.bindLong(4, contract.getWorkflowId());
+                }
+                bindString(statement, 5, contract.getContractType());
+                bindString(statement, 6, contract.getDescription());
+                bindString(statement, 7, contract.getStartDate());
+                bindString(statement, 8, contract.getEndDate());
+                bindString(statement, 9, contract.getTemplate());
+                statement.bindLong(10, contract.isFinalized() ? 1 : 0);
+                statement.bindLong(11, contract.getVersion());
+                bindString(statement, 12, contract.getTimestamp());
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        for (ChangeListener listener : listeners) {
+            listener.onContractsUpserted(contracts);
+        }
+    }
+
+    public void delete(Collection<Long> ids) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(
+                "DELETE FROM " + TABLE_CONTRACTS + " WHERE " + COLUMN_ID + " = ?");
+        db.beginTransaction();
+        try {
+            for (Long id : ids) {
+                if (id == null) {
+                    continue;
+                }
+                statement.bindLong(1, id);
+                statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        for (ChangeListener listener : listeners) {
+            listener.onContractsDeleted(ids);
+        }
+    }
+
+    // Removes every stored contract whose id is not in keepIds, used after a full resync
+    public void retainOnly(Set<Long> keepIds) {
+        List<Long> staleIds = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_CONTRACTS, new String[]{COLUMN_ID},
+                null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                // Negative ids are offline creates still waiting in the outbox
+                if (id >= 0 && !keepIds.contains(id)) {
+                    staleIds.add(id);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        if (!staleIds.isEmpty()) {
+            delete(staleIds);
+        }
+    }
+
+    public String getSyncState(String key) {
+        Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{"value"},
+                "key = ?", new String[]{key}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void putSyncState(String key, String value) {
+        if (value == null) {
+            getWritableDatabase().delete(TABLE_SYNC_STATE, "key = ?", new String[]{key});
+            return;
+        }
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("value", value);
+        getWritableDatabase().insertWithOnConflict(TABLE_SYNC_STATE, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static List<Contract> readContracts(Cursor cursor, boolean summary) {
+        List<Contract> contracts = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            // Column order matches CONTRACT_COLUMNS and SUMMARY_COLUMNS
+            Contract contract = new Contract();
+            contract.setId(cursor.getLong(0));
+            contract.setTitle(cursor.getString(1));
+            contract.setAmount(cursor.isNull(2) ? null : cursor.getDouble(2));
+            contract.setWorkflowId(cursor.isNull(3) ? null : cursor.getLong(3));
+            contract.setContractType(cursor.getString(4));
+            contract.setDescription(cursor.getString(5));
+            contract.setStartDate(cursor.getString(6));
+            contract.setEndDate(cursor.getString(7));
+            contract.setTemplate(cursor.getString(8));
+            contract.setFinalized(cursor.getInt(9) != 0);
+            contract.setVersion(cursor.getInt(10));
+            contract.setTimestamp(cursor.getString(11));
+            contract.setSummary(summary);
+            contracts.add(contract);
+        }
+        return contracts;
+    }
+
+    // Called on the writing thread after each committed upsert or delete
+    public interface ChangeListener {
+        void onContractsUpserted(Collection<Contract> contracts);
+        void onContractsDeleted(Collection<Long> ids);
+    }
+}
@@ -0,0 +1,61 @@
+package co.dtc.fieldwork.pactflow.db;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+public class OutboxEntry {
+    private final long id;
+    private final String type;
+    private final Long contractId;
+    private final Contract contract;
+    private final Contract base;
+    private final long revision;
+    private final Contract conflict;
+
+    OutboxEntry(long id, String type, Long contractId, Contract contract, Contract base, long revision,
+                Contract conflict) {
+        this.id = id;
+        this.type = type;
+        this.contractId = contractId;
+        this.contract = contract;
+        this.base = base;
+        this.revision = revision;
+        this.conflict = conflict;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // One of the ContractOperation types
+    public String getType() {
+        return type;
+    }
+
+    public Long getContractId() {
+        return contractId;
+    }
+
+    public Contract getContract() {
+        return contract;
+    }
+
+    // For updates, the contract as it was before the first queued edit; used to merge conflicts
+    public Contract getBase() {
+        return base;
+    }
+
+    // Bumped whenever the queued payload is rewritten, so a drain can tell it sent an older one
+    public long getRevision() {
+        return revision;
+    }
+
+    // For a parked update, the server copy it lost against; null while the entry is being sent
+    public Contract getConflict() {
+        return conflict;
+    }
+
+    // Placeholder id under which a queued create is shown until the server assigns one
+    public long getLocalId() {
+        return ContractOutbox.localIdFor(id);
+    }
+}
@@ -18,6 +18,8 @@ public class Contract {
     private boolean finalized;
     private int version;
     private String timestamp;
+    // List projection without description and template; never serialized
+    private transient boolean summary;
 
     // Getters and Setters
     public Long getId() {
@@ -116,4 +118,13 @@ public class Contract {
     public void setTimestamp(String timestamp) {
         this.timestamp = timestamp;
     }
+
+    // True when description and template were left out, fetch the contract by id before showing or editing it
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
 }
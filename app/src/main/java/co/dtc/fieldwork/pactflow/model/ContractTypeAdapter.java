@@ -0,0 +1,145 @@
+package co.dtc.fieldwork.pactflow.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reflection-free adapter for {@link Contract}. Reads and writes fields directly, skips
+ * unknown fields without materialising them, and folds the {@code isFinalized} and
+ * {@code finalized} keys into one flag while reading.
+ */
+public class ContractTypeAdapter extends TypeAdapter<Contract> {
+    @Override
+    public void write(JsonWriter out, Contract contract) throws IOException {
+        if (contract == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(contract.getId());
+        out.name("title").value(contract.getTitle());
+        out.name("amount").value(contract.getAmount());
+        out.name("workflowId").value(contract.getWorkflowId());
+        out.name("contractType").value(contract.getContractType());
+        out.name("description").value(contract.getDescription());
+        out.name("startDate").value(contract.getStartDate());
+        out.name("endDate").value(contract.getEndDate());
+        out.name("template").value(contract.getTemplate());
+        // The server has used both spellings, keep sending both
+        out.name("isFinalized").value(contract.isFinalized());
+        out.name("finalized").value(contract.isFinalized());
+        out.name("version").value(contract.getVersion());
+        out.name("timestamp").value(contract.getTimestamp());
+        out.endObject();
+    }
+
+    @Override
+    public Contract read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Contract contract = new Contract();
+        boolean finalized = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    contract.setId(readLong(in));
+                    break;
+                case "title":
+                    contract.setTitle(readString(in));
+                    break;
+                case "amount":
+                    contract.setAmount(readDouble(in));
+                    break;
+                case "workflowId":
+                    contract.setWorkflowId(readLong(in));
+                    break;
+                case "contractType":
+                    contract.setContractType(readString(in));
+                    break;
+                case "description":
+                    contract.setDescription(readString(in));
+                    break;
+                case "startDate":
+                    contract.setStartDate(readString(in));
+                    break;
+                case "endDate":
+                    contract.setEndDate(readString(in));
+                    break;
+                case "template":
+                    contract.setTemplate(readString(in));
+                    break;
+                case "isFinalized":
+                case "finalized":
+                    finalized |= readBoolean(in);
+                    break;
+                case "version":
+                    Long version = readLong(in);
+                    contract.setVersion(version != null ? version.intValue() : 0);
+                    break;
+                case "timestamp":
+                    contract.setTimestamp(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        contract.setFinalized(finalized);
+        return contract;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    private static Long readLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextLong();
+    }
+
+    private static Double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    // Same leniency as BooleanTypeAdapter: null reads as false
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return false;
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            case NUMBER:
+                // nextInt throws on 1.0 or 1e0, which some backends send for flags
+                return in.nextDouble() != 0;
+            default:
+                return in.nextBoolean();
+        }
+    }
+}
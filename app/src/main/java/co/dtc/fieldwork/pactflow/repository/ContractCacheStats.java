@@ -0,0 +1,46 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+public class ContractCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    public ContractCacheStats(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    // Lookups for unknown ids and for entries past their TTL
+    public long getMissCount() {
+        return missCount;
+    }
+
+    // Entries dropped to stay within the size limit
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ContractCacheStats{hits=" + hitCount
+                + ", misses=" + missCount
+                + ", evictions=" + evictionCount
+                + ", size=" + size + "}";
+    }
+}
@@ -0,0 +1,126 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Result of an update that lost an optimistic-concurrency check: the version the edit
+ * started from, the local edit and what the server holds now. {@link #resolve} merges the
+ * two sides field by field; only fields changed differently on both sides conflict.
+ */
+public class ContractConflict {
+    private final Contract base;
+    private final Contract local;
+    private final Contract server;
+    private final List<String> conflictingFields;
+    private final Contract merged;
+
+    private ContractConflict(Contract base, Contract local, Contract server,
+                             List<String> conflictingFields, Contract merged) {
+        this.base = base;
+        this.local = local;
+        this.server = server;
+        this.conflictingFields = conflictingFields;
+        this.merged = merged;
+    }
+
+    // 409 Conflict or 412 Precondition Failed, depending on whether If-Match or the body version failed
+    public static boolean isVersionConflict(int status) {
+        return status == 409 || status == 412;
+    }
+
+    // base may be null when the pre-edit copy is unknown; then any differing field conflicts
+    public static ContractConflict resolve(Contract base, Contract local, Contract server) {
+        List<String> conflicts = new ArrayList<>();
+        boolean hasBase = base != null;
+        Contract b = hasBase ? base : new Contract();
+
+        Contract merged = new Contract();
+        merged.setId(server.getId());
+        merged.setVersion(server.getVersion());
+        merged.setTimestamp(server.getTimestamp());
+        merged.setTitle(pick("title", hasBase, b.getTitle(), local.getTitle(), server.getTitle(), conflicts));
+        merged.setAmount(pick("amount", hasBase, b.getAmount(), local.getAmount(), server.getAmount(), conflicts));
+        merged.setWorkflowId(pick("workflowId", hasBase, b.getWorkflowId(), local.getWorkflowId(), server.getWorkflowId(), conflicts));
+        merged.setContractType(pick("contractType", hasBase, b.getContractType(), local.getContractType(), server.getContractType(), conflicts));
+        merged.setDescription(pick("description", hasBase, b.getDescription(), local.getDescription(), server.getDescription(), conflicts));
+        merged.setStartDate(pick("startDate", hasBase, b.getStartDate(), local.getStartDate(), server.getStartDate(), conflicts));
+        merged.setEndDate(pick("endDate", hasBase, b.getEndDate(), local.getEndDate(), server.getEndDate(), conflicts));
+        merged.setTemplate(pick("template", hasBase, b.getTemplate(), local.getTemplate(), server.getTemplate(), conflicts));
+        merged.setFinalized(pick("finalized", hasBase, b.isFinalized(), local.isFinalized(), server.isFinalized(), conflicts));
+
+        return new ContractConflict(base, local, server, Collections.unmodifiableList(conflicts),
+                conflicts.isEmpty() ? merged : null);
+    }
+
+    private static <T> T pick(String field, boolean hasBase, T base, T local, T server, List<String> conflicts) {
+        if (Objects.equals(local, server)) {
+            return server;
+        }
+        if (hasBase && Objects.equals(local, base)) {
+            // Only the server changed this field
+            return server;
+        }
+        if (hasBase && Objects.equals(server, base)) {
+            // Only we changed it
+            return local;
+        }
+        conflicts.add(field);
+        return local;
+    }
+
+    public Contract getBase() {
+        return base;
+    }
+
+    public Contract getLocal() {
+        return local;
+    }
+
+    public Contract getServer() {
+        return server;
+    }
+
+    public List<String> getConflictingFields() {
+        return conflictingFields;
+    }
+
+    public boolean isResolvable() {
+        return merged != null;
+    }
+
+    // Local and server changes combined, carrying the server's version; null if not resolvable
+    public Contract getMerged() {
+        return merged;
+    }
+
+    // The local edit moved onto the server's version, for when the user chooses their own values
+    public Contract keepLocal() {
+        Contract mine = new Contract();
+        mine.setId(server.getId());
+        mine.setVersion(server.getVersion());
+        mine.setTimestamp(server.getTimestamp());
+        mine.setTitle(local.getTitle());
+        mine.setAmount(local.getAmount());
+        mine.setWorkflowId(local.getWorkflowId());
+        mine.setContractType(local.getContractType());
+        mine.setDescription(local.getDescription());
+        mine.setStartDate(local.getStartDate());
+        mine.setEndDate(local.getEndDate());
+        mine.setTemplate(local.getTemplate());
+        mine.setFinalized(local.isFinalized());
+        return mine;
+    }
+
+    @Override
+    public String toString() {
+        return "ContractConflict{id=" + server.getId()
+                + ", localVersion=" + local.getVersion()
+                + ", serverVersion=" + server.getVersion()
+                + ", fields=" + conflictingFields + "}";
+    }
+}
@@ -0,0 +1,122 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Bounded in-memory LRU of contracts by id, in front of the local store. Entries older than
+ * the TTL count as misses so a detail screen falls back to the store or the network.
+ * All methods are synchronized; lookups are cheap enough to run on the main thread.
+ */
+public class ContractMemoryCache {
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final int maxEntries;
+    private long ttlMillis;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    public ContractMemoryCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public synchronized Contract get(Long id) {
+        Entry entry = id != null ? entries.get(id) : null;
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.cachedAt > ttlMillis) {
+            entries.remove(id);
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.contract;
+    }
+
+    public synchronized void put(Contract contract) {
+        if (contract == null || contract.getId() == null) {
+            return;
+        }
+        entries.put(contract.getId(), new Entry(contract, System.currentTimeMillis()));
+        trim();
+    }
+
+    public synchronized void putAll(Collection<Contract> contracts) {
+        for (Contract contract : contracts) {
+            put(contract);
+        }
+    }
+
+    // Refreshes entries that are already cached without pulling new ids in, e.g. during a full resync
+    public synchronized void updateIfPresent(Collection<Contract> contracts) {
+        long now = System.currentTimeMillis();
+        for (Contract contract : contracts) {
+            if (contract != null && contract.getId() != null && entries.containsKey(contract.getId())) {
+                entries.put(contract.getId(), new Entry(contract, now));
+            }
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        entries.remove(id);
+    }
+
+    public synchronized void removeAll(Collection<Long> ids) {
+        for (Long id : ids) {
+            entries.remove(id);
+        }
+    }
+
+    // Drops cached server contracts that are not in keepIds; local (negative) ids are kept
+    public synchronized void retainOnly(Set<Long> keepIds) {
+        Iterator<Long> it = entries.keySet().iterator();
+        while (it.hasNext()) {
+            Long id = it.next();
+            if (id >= 0 && !keepIds.contains(id)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public synchronized ContractCacheStats getStats() {
+        return new ContractCacheStats(hitCount, missCount, evictionCount, entries.size());
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    private static class Entry {
+        final Contract contract;
+        final long cachedAt;
+
+        Entry(Contract contract, long cachedAt) {
+            this.contract = contract;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Loads contracts page by page from the local store and keeps at most {@code maxPages}
+ * pages in memory. Pages that fall out of the window are dropped and read back from
+ * the store when the user scrolls back.
+ *
+ * <p>Pages are keyed by contract id rather than by offset, so contracts added or removed
+ * while the window is open cannot make the next page skip or repeat rows.
+ */
+public class ContractPagingSource {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 6;
+
+    private final ContractRepository repository;
+    private final int pageSize;
+    private final int maxPages;
+
+    private final ArrayDeque<List<Contract>> pages = new ArrayDeque<>();
+    // The window holds the contracts with ids above this one
+    private long startAfter = Long.MIN_VALUE;
+    private boolean startReached = true;
+    private boolean endReached = false;
+    private boolean loading = false;
+    // Bumped on refresh so responses for an older list are ignored
+    private int generation = 0;
+
+    public interface Callback {
+        void onWindowChanged(List<Contract> window);
+        void onError(String errorMessage);
+    }
+
+    public ContractPagingSource(ContractRepository repository, int pageSize, int maxPages) {
+        this.repository = repository;
+        this.pageSize = pageSize;
+        this.maxPages = Math.max(2, maxPages);
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    // True when the window already reaches the last stored contract
+    public boolean isAtEnd() {
+        return endReached;
+    }
+
+    public boolean canLoadNext() {
+        return !loading && !endReached;
+    }
+
+    public boolean canLoadPrevious() {
+        return !loading && !startReached;
+    }
+
+    public void refresh(Callback callback) {
+        generation++;
+        pages.clear();
+        startAfter = Long.MIN_VALUE;
+        startReached = true;
+        endReached = false;
+        loading = false;
+        loadPage(startAfter, false, callback);
+    }
+
+    // Re-reads the pages currently in the window from its first key, e.g. after a sync wrote to the store
+    public void invalidate(final Callback callback) {
+        if (pages.isEmpty()) {
+            refresh(callback);
+            return;
+        }
+        final int requestGeneration = ++generation;
+        final int pageCount = pages.size();
+        loading = true;
+        repository.getLocalPageAfter(startAfter, pageCount * pageSize, new ContractRepository.ContractsListCallback() {
+            @Override
+            public void onSuccess(List<Contract> contracts) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                pages.clear();
+                for (int start = 0; start < contracts.size(); start += pageSize) {
+                    pages.addLast(new ArrayList<>(contracts.subList(start, Math.min(start + pageSize, contracts.size()))));
+                }
+                endReached = contracts.size() < pageCount * pageSize;
+                callback.onWindowChanged(snapshot());
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                callback.onError(errorMessage);
+            }
+        });
+    }
+
+    public void loadNext(Callback callback) {
+        if (!canLoadNext()) {
+            return;
+        }
+        loadPage(lastKey(), false, callback);
+    }
+
+    public void loadPrevious(Callback callback) {
+        if (!canLoadPrevious()) {
+            return;
+        }
+        loadPage(startAfter + 1, true, callback);
+    }
+
+    public List<Contract> snapshot() {
+        List<Contract> window = new ArrayList<>();
+        for (List<Contract> page : pages) {
+            window.addAll(page);
+        }
+        return window;
+    }
+
+    /**
+     * Brings the window up to date with a delta the store already holds. Deleted contracts are
+     * removed in place. A changed or new contract within the window's range makes the window
+     * re-read from the store, so rows stay summaries in id order, and the result arrives through
+     * callback. Returns true if the window changed in place.
+     */
+    public boolean applyChanges(List<Contract> upserts, Collection<Long> deletedIds, Callback callback) {
+        Set<Long> deleted = deletedIds != null ? new HashSet<>(deletedIds) : Collections.<Long>emptySet();
+        boolean changed = false;
+        if (!deleted.isEmpty()) {
+            for (List<Contract> page : pages) {
+                Iterator<Contract> it = page.iterator();
+                while (it.hasNext()) {
+                    if (deleted.contains(it.next().getId())) {
+                        it.remove();
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        if (upserts != null && !pages.isEmpty()) {
+            long lastKey = lastKey();
+            for (Contract contract : upserts) {
+                Long id = contract != null ? contract.getId() : null;
+                if (id != null && id > startAfter && (id <= lastKey || endReached)) {
+                    invalidate(callback);
+                    return false;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // Id of the last contract in the window, or the window's lower bound when it holds none
+    private long lastKey() {
+        Iterator<List<Contract>> it = pages.descendingIterator();
+        while (it.hasNext()) {
+            List<Contract> page = it.next();
+            if (!page.isEmpty()) {
+                return page.get(page.size() - 1).getId();
+            }
+        }
+        return startAfter;
+    }
+
+    // Reads the page after key, or the page before it when prepending
+    private void loadPage(final long key, final boolean prepend, final Callback callback) {
+        final int requestGeneration = generation;
+        loading = true;
+        ContractRepository.ContractsListCallback pageCallback = new ContractRepository.ContractsListCallback() {
+            @Override
+            public void onSuccess(List<Contract> contracts) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                // Deletions are removed from pages in place, so keep a mutable copy
+                List<Contract> page = contracts != null ? new ArrayList<>(contracts) : new ArrayList<>();
+
+                if (prepend) {
+                    pages.addFirst(page);
+                    startReached = page.size() < pageSize;
+                    startAfter = startReached ? Long.MIN_VALUE : page.get(0).getId() - 1;
+                    if (pages.size() > maxPages) {
+                        pages.removeLast();
+                        endReached = false;
+                    }
+                } else {
+                    pages.addLast(page);
+                    endReached = page.size() < pageSize;
+                    if (pages.size() > maxPages) {
+                        List<Contract> dropped = pages.removeFirst();
+                        if (!dropped.isEmpty()) {
+                            startAfter = dropped.get(dropped.size() - 1).getId();
+                            startReached = false;
+                        }
+                    }
+                }
+                callback.onWindowChanged(snapshot());
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                callback.onError(errorMessage);
+            }
+        };
+        if (prepend) {
+            repository.getLocalPageBefore(key, pageSize, pageCallback);
+        } else {
+            repository.getLocalPageAfter(key, pageSize, pageCallback);
+        }
+    }
+}
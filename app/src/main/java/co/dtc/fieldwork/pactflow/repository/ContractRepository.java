@@ -1,96 +1,592 @@
 package co.dtc.fieldwork.pactflow.repository;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.lifecycle.MutableLiveData;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import co.dtc.fieldwork.pactflow.api.ApiClient;
 import co.dtc.fieldwork.pactflow.api.ContractApiService;
+import co.dtc.fieldwork.pactflow.api.ContractStream;
+import co.dtc.fieldwork.pactflow.api.request.ContractFilter;
 import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.api.response.ContractChanges;
+import co.dtc.fieldwork.pactflow.api.response.PageResponse;
+import co.dtc.fieldwork.pactflow.db.ContractOutbox;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.db.OutboxEntry;
 import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.sync.ContractOutboxWorker;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 
 public class ContractRepository {
+    private static final String KEY_WATERMARK = "contracts_watermark";
+    private static final String KEY_LAST_SYNC = "contracts_last_sync";
+    private static final int SYNC_CHUNK_SIZE = 100;
+    private static final int INDEX_BUILD_CHUNK_SIZE = 1000;
+    // What a list row shows; description and template are fetched when a contract is opened
+    private static final String SUMMARY_FIELDS =
+            "id,title,amount,workflowId,contractType,startDate,endDate,isFinalized,finalized,version,timestamp";
+    // Search results beyond this are not loaded; a longer query narrows them down
+    private static final int MAX_SEARCH_RESULTS = 500;
+
+    // Single thread so store reads always observe earlier writes
+    private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    // Blocking reads of streamed responses
+    private static final Executor networkExecutor = Executors.newSingleThreadExecutor();
+    // Searches only read, so they do not queue behind store writes; superseded ones get cancelled
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Shared by every repository instance so reads from different screens coalesce too
+    private static final SingleFlight<ContractCallback> contractReads = new SingleFlight<>();
+    private static final SingleFlight<SyncCallback> syncs = new SingleFlight<>();
+    private static final String SYNC_KEY = "sync";
+    // Recently seen contracts, so detail opens skip both the store and the network
+    private static final ContractMemoryCache memoryCache =
+            new ContractMemoryCache(ContractMemoryCache.DEFAULT_MAX_ENTRIES, ContractMemoryCache.DEFAULT_TTL_MILLIS);
+    // Follows every store write once registered; filled from the store on the first search
+    private static final ContractSearchIndex searchIndex = new ContractSearchIndex();
+    private static boolean searchIndexRegistered = false;
+    // Search executor only
+    private static boolean searchIndexBuilt = false;
+    // Wall-clock time of the last completed sync, -1 until read from the store; disk executor only
+    private static long lastSyncMillis = -1;
+
     private final ContractApiService apiService;
+    private final ContractStore store;
+    private final ContractOutbox outbox;
 
     public ContractRepository() {
         this.apiService = ApiClient.getContractApiService();
+        this.store = ContractStore.getInstance();
+        this.outbox = new ContractOutbox(store);
+        synchronized (ContractRepository.class) {
+            if (!searchIndexRegistered) {
+                store.addChangeListener(new ContractStore.ChangeListener() {
+                    @Override
+                    public void onContractsUpserted(Collection<Contract> contracts) {
+                        searchIndex.update(contracts);
+                    }
+
+                    @Override
+                    public void onContractsDeleted(Collection<Long> ids) {
+                        searchIndex.remove(ids);
+                    }
+                });
+                searchIndexRegistered = true;
+            }
+        }
+    }
+
+    /**
+     * Runs store and outbox work for a background job on the disk thread and waits for the
+     * result, so it never interleaves with the repository's own writes. Must not be called
+     * from the disk thread itself.
+     */
+    public static <T> T runOnDiskThread(Callable<T> work) throws InterruptedException {
+        try {
+            return diskExecutor.submit(work).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Summaries for the list, the page after afterId in id order; open a contract through getContractById
+    public void getLocalPageAfter(final long afterId, final int limit, final ContractsListCallback callback) {
+        readLocalPage(() -> store.getSummaryPageAfter(afterId, limit), callback);
     }
 
-    public void createContract(Contract contract, final ContractCallback callback) {
-        apiService.createContract(contract).enqueue(new Callback<ApiResponse<Contract>>() {
+    // The page of summaries just before beforeId, in id order
+    public void getLocalPageBefore(final long beforeId, final int limit, final ContractsListCallback callback) {
+        readLocalPage(() -> store.getSummaryPageBefore(beforeId, limit), callback);
+    }
+
+    private void readLocalPage(final Callable<List<Contract>> read, final ContractsListCallback callback) {
+        diskExecutor.execute(() -> {
+            try {
+                List<Contract> contracts = read.call();
+                mainHandler.post(() -> callback.onSuccess(contracts));
+            } catch (Exception e) {
+                AppLog.e("ContractRepository", "Error reading contracts from store", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    // Summaries matching filter from the store, for when the server cannot be asked
+    public void getLocalFilteredPage(final ContractFilter filter, final int offset, final int limit,
+                                     final ContractsListCallback callback) {
+        diskExecutor.execute(() -> {
+            try {
+                List<Contract> contracts = store.getFilteredSummaryPage(filter, offset, limit);
+                mainHandler.post(() -> callback.onSuccess(contracts));
+            } catch (Exception e) {
+                AppLog.e("ContractRepository", "Error filtering contracts in store", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+            }
+        });
+    }
+
+    // Called on the disk thread after every store write, whether from a sync or a queued edit
+    public void addChangeListener(ContractStore.ChangeListener listener) {
+        store.addChangeListener(listener);
+    }
+
+    public void removeChangeListener(ContractStore.ChangeListener listener) {
+        store.removeChangeListener(listener);
+    }
+
+    // Matches every query word as a prefix of a word in title, description or contract type and
+    // returns summaries. Cancelling the returned future drops the search, the callback is then never called
+    public Future<?> searchContracts(final String query, final ContractsListCallback callback) {
+        return searchExecutor.submit(() -> {
+            List<Contract> results;
+            try {
+                ensureSearchIndex();
+                List<Long> ids = searchIndex.search(query, MAX_SEARCH_RESULTS);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                results = store.getSummariesByIds(ids);
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Search failed for '" + query + "'", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            final List<Contract> matches = results;
+            mainHandler.post(() -> callback.onSuccess(matches));
+        });
+    }
+
+    // Runs on the search executor. The index is built from the store without holding its lock,
+    // so store writes meanwhile are not held up; they are replayed onto it before it is swapped in
+    private void ensureSearchIndex() {
+        if (searchIndexBuilt) {
+            return;
+        }
+        searchIndex.beginRebuild();
+        ContractSearchIndex built = new ContractSearchIndex();
+        List<Contract> page;
+        long lastId = Long.MIN_VALUE;
+        while (!(page = store.getPageAfter(lastId, INDEX_BUILD_CHUNK_SIZE)).isEmpty()) {
+            built.update(page);
+            lastId = page.get(page.size() - 1).getId();
+        }
+        searchIndex.finishRebuild(built);
+        searchIndexBuilt = true;
+        if (AppLog.DEBUG) {
+            AppLog.d("ContractRepository", "Search index built over " + searchIndex.size() + " contracts");
+        }
+    }
+
+    /**
+     * Syncs like {@link #syncContracts} when the last completed sync is older than
+     * {@code maxAgeMillis}, otherwise completes straight away without a request.
+     */
+    public void syncContractsIfStale(final long maxAgeMillis, final SyncCallback callback) {
+        diskExecutor.execute(() -> {
+            final long age = System.currentTimeMillis() - getLastSyncMillis();
+            mainHandler.post(() -> {
+                if (age >= 0 && age < maxAgeMillis) {
+                    if (AppLog.DEBUG) {
+                        AppLog.d("ContractRepository", "Contracts synced " + age + " ms ago, skipping revalidation");
+                    }
+                    callback.onComplete();
+                } else {
+                    syncContracts(callback);
+                }
+            });
+        });
+    }
+
+    /**
+     * Brings the local store up to date with the server. Uses the delta endpoint when a
+     * watermark from an earlier sync is stored, otherwise streams the full list.
+     */
+    public void syncContracts(final SyncCallback callback) {
+        final SingleFlight.Flight<SyncCallback> flight = syncs.join(SYNC_KEY, callback);
+        if (flight == null) {
+            // A sync is already running, the callback is told about the rest of it
+            return;
+        }
+
+        final SyncCallback fanOut = new SyncCallback() {
             @Override
-            public void onResponse(Call<ApiResponse<Contract>> call, Response<ApiResponse<Contract>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    callback.onSuccess(response.body().getData());
+            public void onContractsStored() {
+                for (SyncCallback listener : syncs.listeners(flight)) {
+                    listener.onContractsStored();
+                }
+            }
+
+            @Override
+            public void onChanges(List<Contract> upserts, List<Long> deletedIds) {
+                for (SyncCallback listener : syncs.listeners(flight)) {
+                    listener.onChanges(upserts, deletedIds);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                for (SyncCallback listener : syncs.finish(SYNC_KEY, flight)) {
+                    listener.onComplete();
+                }
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                for (SyncCallback listener : syncs.finish(SYNC_KEY, flight)) {
+                    listener.onError(errorMessage);
+                }
+            }
+        };
+
+        diskExecutor.execute(() -> {
+            String watermark = store.getSyncState(KEY_WATERMARK);
+            mainHandler.post(() -> {
+                if (watermark != null) {
+                    syncChanges(watermark, fanOut);
                 } else {
-                    callback.onError(response.message());
+                    syncAllContracts(fanOut);
+                }
+            });
+        });
+    }
+
+    private void syncChanges(String watermark, final SyncCallback callback) {
+        getContractChanges(watermark, new ContractChangesCallback() {
+            @Override
+            public void onSuccess(ContractChanges changes) {
+                if (changes == null) {
+                    diskExecutor.execute(() -> {
+                        markSynced();
+                        mainHandler.post(callback::onComplete);
+                    });
+                    return;
                 }
+                List<Contract> upserts = changes.getUpserts() != null ? changes.getUpserts() : Collections.<Contract>emptyList();
+                List<Long> deletedIds = changes.getDeletedIds() != null ? changes.getDeletedIds() : Collections.<Long>emptyList();
+                for (Contract contract : upserts) {
+                    contractReads.invalidate(contractKey(contract.getId()));
+                }
+                for (Long id : deletedIds) {
+                    contractReads.invalidate(contractKey(id));
+                }
+                diskExecutor.execute(() -> {
+                    ContractChanges applied = storeChanges(upserts, deletedIds);
+                    if (changes.getWatermark() != null) {
+                        store.putSyncState(KEY_WATERMARK, changes.getWatermark());
+                    }
+                    markSynced();
+                    mainHandler.post(() -> {
+                        callback.onChanges(applied.getUpserts(), applied.getDeletedIds());
+                        callback.onComplete();
+                    });
+                });
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<Contract>> call, Throwable t) {
-                callback.onError(t.getMessage());
+            public void onError(String errorMessage) {
+                callback.onError(errorMessage);
             }
         });
     }
 
-    public void getContractById(Long id, final ContractCallback callback) {
+    private void syncAllContracts(final SyncCallback callback) {
+        networkExecutor.execute(() -> {
+            Set<Long> seenIds = new HashSet<>();
+            String latest = null;
+            try {
+                Response<ContractStream> response = apiService.streamAllContracts().execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    String message = response.message();
+                    mainHandler.post(() -> callback.onError(message));
+                    return;
+                }
+                // Store each chunk as soon as it is parsed so the first rows show up early
+                try (ContractStream stream = response.body()) {
+                    List<Contract> chunk;
+                    while (!(chunk = stream.nextChunk(SYNC_CHUNK_SIZE)).isEmpty()) {
+                        for (Contract contract : chunk) {
+                            if (contract.getId() != null) {
+                                seenIds.add(contract.getId());
+                            }
+                            String timestamp = contract.getTimestamp();
+                            if (timestamp != null && (latest == null || compareTimestamps(timestamp, latest) > 0)) {
+                                latest = timestamp;
+                            }
+                        }
+                        final List<Contract> parsed = chunk;
+                        diskExecutor.execute(() -> {
+                            storeChunk(parsed);
+                            mainHandler.post(callback::onContractsStored);
+                        });
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                AppLog.e("ContractRepository", "Error streaming contracts", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+
+            // Drop anything the server no longer has and remember where we are
+            final String watermark = latest;
+            diskExecutor.execute(() -> {
+                retainServerContracts(seenIds);
+                store.putSyncState(KEY_WATERMARK, watermark);
+                markSynced();
+                mainHandler.post(callback::onComplete);
+            });
+        });
+    }
+
+    /**
+     * Disk executor only. Writes a delta from the server to the store and the memory cache,
+     * except for contracts with queued writes: their rows keep the local values until the outbox
+     * has sent them. Returns the part of the delta that was written.
+     */
+    ContractChanges storeChanges(List<Contract> upserts, List<Long> deletedIds) {
+        Set<Long> pending = outbox.getPendingContractIds();
+        List<Contract> written = withoutPending(upserts, pending);
+        List<Long> deleted = new ArrayList<>(deletedIds.size());
+        for (Long id : deletedIds) {
+            if (!pending.contains(id)) {
+                deleted.add(id);
+            }
+        }
+        memoryCache.removeAll(deleted);
+        memoryCache.putAll(written);
+        store.delete(deleted);
+        store.upsert(written);
+
+        ContractChanges applied = new ContractChanges();
+        applied.setUpserts(written);
+        applied.setDeletedIds(deleted);
+        return applied;
+    }
+
+    // Disk executor only. Stores a chunk of a full resync, skipping contracts with queued writes
+    void storeChunk(List<Contract> chunk) {
+        List<Contract> written = withoutPending(chunk, outbox.getPendingContractIds());
+        memoryCache.updateIfPresent(written);
+        store.upsert(written);
+    }
+
+    // Disk executor only. Ends a full resync by dropping what the server no longer has; offline
+    // creates and contracts with queued writes stay until the outbox has settled them
+    void retainServerContracts(Set<Long> serverIds) {
+        Set<Long> keepIds = new HashSet<>(serverIds);
+        keepIds.addAll(outbox.getPendingContractIds());
+        store.retainOnly(keepIds);
+        memoryCache.retainOnly(keepIds);
+    }
+
+    private static List<Contract> withoutPending(List<Contract> contracts, Set<Long> pendingIds) {
+        if (pendingIds.isEmpty()) {
+            return contracts;
+        }
+        List<Contract> kept = new ArrayList<>(contracts.size());
+        for (Contract contract : contracts) {
+            if (contract != null && !pendingIds.contains(contract.getId())) {
+                kept.add(contract);
+            }
+        }
+        return kept;
+    }
+
+    // Disk executor only
+    private long getLastSyncMillis() {
+        if (lastSyncMillis < 0) {
+            String stored = store.getSyncState(KEY_LAST_SYNC);
+            try {
+                lastSyncMillis = stored != null ? Long.parseLong(stored) : 0;
+            } catch (NumberFormatException e) {
+                lastSyncMillis = 0;
+            }
+        }
+        return lastSyncMillis;
+    }
+
+    // Disk executor only
+    private void markSynced() {
+        lastSyncMillis = System.currentTimeMillis();
+        store.putSyncState(KEY_LAST_SYNC, String.valueOf(lastSyncMillis));
+    }
+
+    // Timestamps are either epoch millis or ISO-8601 strings
+    private static int compareTimestamps(String a, String b) {
+        try {
+            return Long.compare(Long.parseLong(a), Long.parseLong(b));
+        } catch (NumberFormatException e) {
+            return a.compareTo(b);
+        }
+    }
+
+    private void writeThrough(final List<Contract> contracts) {
+        memoryCache.putAll(contracts);
+        diskExecutor.execute(() -> store.upsert(contracts));
+    }
+
+    public void getContractById(final Long id, final ContractCallback callback) {
+        Contract cached = memoryCache.get(id);
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+        // Then the store, the network is only needed for unknown ids
+        diskExecutor.execute(() -> {
+            Contract stored = id != null ? store.getById(id) : null;
+            mainHandler.post(() -> {
+                if (stored != null) {
+                    memoryCache.put(stored);
+                    callback.onSuccess(stored);
+                } else {
+                    fetchContractById(id, callback);
+                }
+            });
+        });
+    }
+
+    private void fetchContractById(final Long id, final ContractCallback callback) {
+        final String key = contractKey(id);
+        final SingleFlight.Flight<ContractCallback> flight = contractReads.join(key, callback);
+        if (flight == null) {
+            // Same contract is already being fetched, the callback gets that result
+            return;
+        }
+
         apiService.getContractById(id).enqueue(new Callback<ApiResponse<Contract>>() {
             @Override
             public void onResponse(Call<ApiResponse<Contract>> call, Response<ApiResponse<Contract>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    callback.onSuccess(response.body().getData());
-                } else {
-                    callback.onError(response.message());
+                boolean current = contractReads.isCurrent(flight);
+                List<ContractCallback> waiting = contractReads.finish(key, flight);
+                if (!response.isSuccessful() || response.body() == null) {
+                    for (ContractCallback waiter : waiting) {
+                        waiter.onError(response.message());
+                    }
+                    return;
+                }
+
+                if (!current) {
+                    // The contract was written while this request was running, so its body
+                    // may predate that write; hand out what the write stored instead
+                    deliverStored(id, waiting);
+                    return;
+                }
+                Contract contract = response.body().getData();
+                writeThrough(Collections.singletonList(contract));
+                for (ContractCallback waiter : waiting) {
+                    waiter.onSuccess(contract);
                 }
             }
 
             @Override
             public void onFailure(Call<ApiResponse<Contract>> call, Throwable t) {
-                callback.onError(t.getMessage());
+                for (ContractCallback waiter : contractReads.finish(key, flight)) {
+                    waiter.onError(t.getMessage());
+                }
             }
         });
     }
 
-    public void getAllContracts(final ContractsListCallback callback) {
-        apiService.getAllContracts().enqueue(new Callback<ApiResponse<List<Contract>>>() {
+    private void deliverStored(final Long id, final List<ContractCallback> waiting) {
+        diskExecutor.execute(() -> {
+            Contract stored = store.getById(id);
+            mainHandler.post(() -> {
+                for (ContractCallback waiter : waiting) {
+                    if (stored != null) {
+                        waiter.onSuccess(stored);
+                    } else {
+                        waiter.onError("Contract " + id + " no longer exists");
+                    }
+                }
+            });
+        });
+    }
+
+    // Summaries lack description and template; saving one would blank them on the server
+    private static boolean rejectSummary(Long id, Contract contract, ContractCallback callback) {
+        if (contract != null && contract.isSummary()) {
+            callback.onError("Contract " + id + " is a list summary, load it with getContractById before saving");
+            return true;
+        }
+        return false;
+    }
+
+    private static String contractKey(Long id) {
+        return "contract:" + id;
+    }
+
+    /**
+     * One page of the server-side filtered and sorted list, without description and template;
+     * a null filter pages through everything. Summaries are not written to the store or the
+     * memory cache, where they would replace whole contracts.
+     */
+    public void getContractSummariesPage(ContractFilter filter, String cursor, int limit, final ContractsPageCallback callback) {
+        ContractFilter query = filter != null ? filter : new ContractFilter();
+        apiService.getContractsPage(cursor, limit, SUMMARY_FIELDS,
+                query.getContractType(),
+                query.getFinalized(),
+                query.getFromDate(),
+                query.getToDate(),
+                query.getMinAmount(),
+                query.getMaxAmount(),
+                query.getSortValue()).enqueue(new Callback<ApiResponse<PageResponse<Contract>>>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Contract>>> call, Response<ApiResponse<List<Contract>>> response) {
+            public void onResponse(Call<ApiResponse<PageResponse<Contract>>> call, Response<ApiResponse<PageResponse<Contract>>> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    List<Contract> contracts = response.body().getData();
-                    // Log contract data for debugging
-                    if (contracts != null) {
-                        for (Contract contract : contracts) {
-                            android.util.Log.d("ContractRepository", String.format(
-                                    "Contract loaded - Title: %s, ID: %s, isFinalized: %s",
-                                    contract.getTitle(),
-                                    contract.getId(),
-                                    contract.isFinalized()
-                            ));
+                    PageResponse<Contract> page = response.body().getData();
+                    if (page == null || page.getItems() == null) {
+                        callback.onSuccess(new ArrayList<>(), null);
+                    } else {
+                        for (Contract contract : page.getItems()) {
+                            contract.setSummary(true);
                         }
+                        callback.onSuccess(page.getItems(), page.getNextCursor());
                     }
-                    callback.onSuccess(contracts);
                 } else {
-                    String errorMsg = response.errorBody() != null ? response.errorBody().toString() : "Unknown error";
-                    android.util.Log.e("ContractRepository", "Error loading contracts: " + errorMsg);
                     callback.onError(response.message());
                 }
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<List<Contract>>> call, Throwable t) {
+            public void onFailure(Call<ApiResponse<PageResponse<Contract>>> call, Throwable t) {
                 callback.onError(t.getMessage());
             }
         });
     }
 
-    public void updateContract(Long id, Contract contract, final ContractCallback callback) {
-        apiService.updateContract(id, contract).enqueue(new Callback<ApiResponse<Contract>>() {
+    public void getContractChanges(String since, final ContractChangesCallback callback) {
+        apiService.getContractChanges(since).enqueue(new Callback<ApiResponse<ContractChanges>>() {
             @Override
-            public void onResponse(Call<ApiResponse<Contract>> call, Response<ApiResponse<Contract>> response) {
+            public void onResponse(Call<ApiResponse<ContractChanges>> call, Response<ApiResponse<ContractChanges>> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     callback.onSuccess(response.body().getData());
                 } else {
@@ -99,27 +595,127 @@ public class ContractRepository {
             }
 
             @Override
-            public void onFailure(Call<ApiResponse<Contract>> call, Throwable t) {
+            public void onFailure(Call<ApiResponse<ContractChanges>> call, Throwable t) {
                 callback.onError(t.getMessage());
             }
         });
     }
 
-    public void deleteContract(Long id, final DeleteCallback callback) {
-        apiService.deleteContract(id).enqueue(new Callback<ApiResponse<Void>>() {
-            @Override
-            public void onResponse(Call<ApiResponse<Void>> call, Response<ApiResponse<Void>> response) {
-                if (response.isSuccessful()) {
-                    callback.onSuccess();
-                } else {
-                    callback.onError(response.message());
-                }
+    public static ContractMemoryCache getMemoryCache() {
+        return memoryCache;
+    }
+
+    public static ContractCacheStats getMemoryCacheStats() {
+        return memoryCache.getStats();
+    }
+
+    public ContractPagingSource createPagingSource() {
+        return new ContractPagingSource(this, ContractPagingSource.DEFAULT_PAGE_SIZE, ContractPagingSource.DEFAULT_MAX_PAGES);
+    }
+
+    // Offline-first writes: the change lands in the store and the outbox right away and
+    // ContractOutboxWorker sends it once the device is online
+
+    public void queueCreateContract(final Contract contract, final ContractCallback callback) {
+        diskExecutor.execute(() -> {
+            try {
+                long localId = outbox.enqueueCreate(contract);
+                contract.setId(localId);
+                store.upsert(Collections.singletonList(contract));
+                memoryCache.put(contract);
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Failed to queue contract", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
             }
+            ContractOutboxWorker.schedule();
+            ContractOutboxWorker.notifyOutboxChanged();
+            mainHandler.post(() -> callback.onSuccess(contract));
+        });
+    }
 
-            @Override
-            public void onFailure(Call<ApiResponse<Void>> call, Throwable t) {
-                callback.onError(t.getMessage());
+    public void queueUpdateContract(final Long id, final Contract contract, final ContractCallback callback) {
+        if (rejectSummary(id, contract, callback)) {
+            return;
+        }
+        contractReads.invalidate(contractKey(id));
+        diskExecutor.execute(() -> {
+            try {
+                // Read before the store is overwritten, the outbox keeps it for conflict merges
+                Contract base = store.getById(id);
+                outbox.enqueueUpdate(id, contract, base);
+                contract.setId(id);
+                store.upsert(Collections.singletonList(contract));
+                memoryCache.put(contract);
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Failed to queue update for " + id, e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            ContractOutboxWorker.schedule();
+            ContractOutboxWorker.notifyOutboxChanged();
+            mainHandler.post(() -> callback.onSuccess(contract));
+        });
+    }
+
+    public void queueDeleteContract(final Long id, final DeleteCallback callback) {
+        contractReads.invalidate(contractKey(id));
+        memoryCache.remove(id);
+        diskExecutor.execute(() -> {
+            try {
+                outbox.enqueueDelete(id);
+                store.delete(Collections.singletonList(id));
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Failed to queue delete for " + id, e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            ContractOutboxWorker.schedule();
+            ContractOutboxWorker.notifyOutboxChanged();
+            mainHandler.post(callback::onSuccess);
+        });
+    }
+
+    // Oldest queued edit that collided with someone else's and waits for the user, null if none
+    public void getNextConflict(final ConflictCallback callback) {
+        diskExecutor.execute(() -> {
+            ContractConflict conflict;
+            try {
+                OutboxEntry entry = outbox.peekConflict();
+                conflict = entry != null ? ContractConflict.resolve(entry.getBase(), entry.getContract(), entry.getConflict()) : null;
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Failed to read edit conflicts", e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
             }
+            mainHandler.post(() -> callback.onSuccess(conflict));
+        });
+    }
+
+    /**
+     * Settles a conflict from {@link #getNextConflict}. With {@code keepLocal} the user's values are
+     * queued again on top of the server's version, otherwise the server's version replaces them.
+     */
+    public void resolveConflict(final ContractConflict conflict, final boolean keepLocal, final ContractCallback callback) {
+        final Long id = conflict.getServer().getId();
+        contractReads.invalidate(contractKey(id));
+        diskExecutor.execute(() -> {
+            Contract stored;
+            try {
+                stored = outbox.resolveConflict(id, keepLocal ? conflict.keepLocal() : null);
+            } catch (RuntimeException e) {
+                AppLog.e("ContractRepository", "Failed to resolve conflict for " + id, e);
+                mainHandler.post(() -> callback.onError(e.getMessage()));
+                return;
+            }
+            if (stored != null) {
+                memoryCache.put(stored);
+            }
+            if (keepLocal) {
+                ContractOutboxWorker.schedule();
+            }
+            ContractOutboxWorker.notifyOutboxChanged();
+            mainHandler.post(() -> callback.onSuccess(stored));
         });
     }
 
@@ -133,6 +729,30 @@ public class ContractRepository {
         void onError(String errorMessage);
     }
 
+    public interface ContractsPageCallback {
+        void onSuccess(List<Contract> contracts, String nextCursor);
+        void onError(String errorMessage);
+    }
+
+    public interface ContractChangesCallback {
+        void onSuccess(ContractChanges changes);
+        void onError(String errorMessage);
+    }
+
+    public interface SyncCallback {
+        // A full resync stored another chunk of contracts
+        void onContractsStored();
+        // A delta sync applied these changes to the store
+        void onChanges(List<Contract> upserts, List<Long> deletedIds);
+        void onComplete();
+        void onError(String errorMessage);
+    }
+
+    public interface ConflictCallback {
+        void onSuccess(ContractConflict conflict);
+        void onError(String errorMessage);
+    }
+
     public interface DeleteCallback {
         void onSuccess();
         void onError(String errorMessage);
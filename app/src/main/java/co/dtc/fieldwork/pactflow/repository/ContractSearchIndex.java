@@ -0,0 +1,300 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Inverted index from lower-cased word tokens of title, description and contract type to
+ * contract ids. Every query term matches as a word prefix and all terms must match, so a
+ * lookup walks only the tokens under each prefix instead of every contract. Kept up to date
+ * incrementally through {@link #update} and {@link #remove}; all methods are synchronized.
+ *
+ * <p>Each token's ids are kept as a sorted primitive array, so a search merges them in id
+ * order and stops once it has enough results instead of collecting every match.
+ */
+public class ContractSearchIndex {
+    private TreeMap<String, Postings> postings = new TreeMap<>();
+    // The postings each contract is listed in, to re-index or remove it; shares their token strings
+    private Map<Long, Postings[]> postingsById = new HashMap<>();
+    // Changes made while a replacement is built off the lock, replayed onto it by finishRebuild
+    private List<Change> journal = null;
+
+    public synchronized void update(Collection<Contract> contracts) {
+        if (journal != null) {
+            journal.add(new Change(new ArrayList<>(contracts), null));
+        }
+        for (Contract contract : contracts) {
+            if (contract == null || contract.getId() == null) {
+                continue;
+            }
+            Long id = contract.getId();
+            Set<String> tokens = new HashSet<>();
+            tokenize(contract.getTitle(), tokens);
+            tokenize(contract.getDescription(), tokens);
+            tokenize(contract.getContractType(), tokens);
+
+            Postings[] listed = new Postings[tokens.size()];
+            int i = 0;
+            for (String token : tokens) {
+                Postings ids = postings.get(token);
+                if (ids == null) {
+                    ids = new Postings(token);
+                    postings.put(token, ids);
+                }
+                ids.add(id);
+                listed[i++] = ids;
+            }
+
+            Postings[] previous = postingsById.put(id, listed);
+            if (previous != null) {
+                for (Postings ids : previous) {
+                    if (!tokens.contains(ids.token)) {
+                        removePosting(ids, id);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(Collection<Long> ids) {
+        if (journal != null) {
+            journal.add(new Change(null, new ArrayList<>(ids)));
+        }
+        for (Long id : ids) {
+            Postings[] listed = id != null ? postingsById.remove(id) : null;
+            if (listed != null) {
+                for (Postings postingsOfToken : listed) {
+                    removePosting(postingsOfToken, id);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        postingsById.clear();
+    }
+
+    public synchronized int size() {
+        return postingsById.size();
+    }
+
+    /**
+     * Starts recording changes so an index built elsewhere from a snapshot of the store can be
+     * brought up to date by {@link #finishRebuild}. Writes keep going to this index meanwhile.
+     */
+    public synchronized void beginRebuild() {
+        journal = new ArrayList<>();
+    }
+
+    // Replays the changes since beginRebuild onto built and takes over its contents
+    public synchronized void finishRebuild(ContractSearchIndex built) {
+        List<Change> changes = journal;
+        journal = null;
+        if (changes != null) {
+            for (Change change : changes) {
+                if (change.upserts != null) {
+                    built.update(change.upserts);
+                } else {
+                    built.remove(change.deletedIds);
+                }
+            }
+        }
+        synchronized (built) {
+            postings = built.postings;
+            postingsById = built.postingsById;
+            built.postings = new TreeMap<>();
+            built.postingsById = new HashMap<>();
+        }
+    }
+
+    // Ids of up to limit contracts matching every term of the query, lowest ids first like the store
+    public synchronized List<Long> search(String query, int limit) {
+        List<String> terms = new ArrayList<>();
+        tokenize(query, terms);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Walk the most selective term, then check the others against each candidate's own
+        // tokens, so a broad term like "a" costs nothing when another term is rare
+        String rarest = null;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String term : terms) {
+            int count = 0;
+            for (Postings ids : prefixRange(term).values()) {
+                count += ids.size;
+            }
+            if (count < rarestCount) {
+                rarest = term;
+                rarestCount = count;
+            }
+        }
+        if (rarestCount == 0) {
+            return Collections.emptyList();
+        }
+        List<String> others = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            if (!term.equals(rarest)) {
+                others.add(term);
+            }
+        }
+
+        // Merge the sorted id arrays of every token under the prefix, smallest id first
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+        for (Postings ids : prefixRange(rarest).values()) {
+            cursors.add(new Cursor(ids));
+        }
+        List<Long> result = new ArrayList<>(Math.min(limit, rarestCount));
+        long last = 0;
+        boolean first = true;
+        while (!cursors.isEmpty() && result.size() < limit) {
+            Cursor cursor = cursors.poll();
+            long id = cursor.current();
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+            if (!first && id == last) {
+                // Listed under several tokens with this prefix
+                continue;
+            }
+            first = false;
+            last = id;
+            if (matchesAll(postingsById.get(id), others)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private NavigableMap<String, Postings> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    private static boolean matchesAll(Postings[] listed, List<String> terms) {
+        for (String term : terms) {
+            if (!hasTokenWithPrefix(listed, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasTokenWithPrefix(Postings[] listed, String prefix) {
+        if (listed == null) {
+            return false;
+        }
+        for (Postings ids : listed) {
+            if (ids.token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removePosting(Postings ids, long id) {
+        ids.remove(id);
+        if (ids.size == 0) {
+            postings.remove(ids.token);
+        }
+    }
+
+    // Splits on anything that is not a letter or digit, lower-casing as it goes
+    static void tokenize(String text, Collection<String> out) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                out.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            out.add(token.toString());
+        }
+    }
+
+    // Ids of the contracts containing one token, sorted and without boxing
+    private static final class Postings {
+        final String token;
+        long[] ids = new long[2];
+        int size;
+
+        Postings(String token) {
+            this.token = token;
+        }
+
+        void add(long id) {
+            // Store pages and syncs arrive in id order, so this is almost always an append
+            int at = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                at = -at - 1;
+            } else if (at < size) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final Postings postings;
+        private int position;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        long current() {
+            return postings.ids[position];
+        }
+
+        boolean advance() {
+            return ++position < postings.size;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(current(), other.current());
+        }
+    }
+
+    private static final class Change {
+        final Collection<Contract> upserts;
+        final Collection<Long> deletedIds;
+
+        Change(Collection<Contract> upserts, Collection<Long> deletedIds) {
+            this.upserts = upserts;
+            this.deletedIds = deletedIds;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces concurrent identical reads. The first caller for a key starts the request and
+ * everyone who asks for the same key while it is running waits for that one result.
+ * Writes call {@link #invalidate(String)} so requests that were already in flight are
+ * recognisable as stale when they complete. Nothing is kept for a key once its flight ends.
+ */
+class SingleFlight<L> {
+    static final class Flight<L> {
+        private final List<L> listeners = new ArrayList<>();
+        // Set when the key was written while this flight was running
+        private boolean stale = false;
+
+        private Flight() {
+        }
+    }
+
+    private final Map<String, Flight<L>> inFlight = new HashMap<>();
+
+    /**
+     * Registers {@code listener} for {@code key}. Returns the new flight when the caller has to
+     * start the request, or null when it joined one that is already running.
+     */
+    synchronized Flight<L> join(String key, L listener) {
+        Flight<L> flight = inFlight.get(key);
+        if (flight != null) {
+            flight.listeners.add(listener);
+            return null;
+        }
+        flight = new Flight<>();
+        flight.listeners.add(listener);
+        inFlight.put(key, flight);
+        return flight;
+    }
+
+    synchronized List<L> listeners(Flight<L> flight) {
+        return new ArrayList<>(flight.listeners);
+    }
+
+    // Ends the flight and returns everyone who was waiting on it
+    synchronized List<L> finish(String key, Flight<L> flight) {
+        if (inFlight.get(key) == flight) {
+            inFlight.remove(key);
+        }
+        return new ArrayList<>(flight.listeners);
+    }
+
+    // False once a write to the same key happened after the flight started; check before finish
+    synchronized boolean isCurrent(Flight<L> flight) {
+        return !flight.stale;
+    }
+
+    // Later callers start a fresh request instead of joining one that may return old data
+    synchronized void invalidate(String key) {
+        Flight<L> flight = inFlight.remove(key);
+        if (flight != null) {
+            flight.stale = true;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package co.dtc.fieldwork.pactflow.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.ContractApiService;
+import co.dtc.fieldwork.pactflow.api.request.ContractBatchRequest;
+import co.dtc.fieldwork.pactflow.api.request.ContractOperation;
+import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.api.response.ContractBatchResult;
+import co.dtc.fieldwork.pactflow.db.ContractOutbox;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.db.OutboxEntry;
+import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.repository.ContractConflict;
+import co.dtc.fieldwork.pactflow.repository.ContractRepository;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
+import retrofit2.Response;
+
+/**
+ * Drains the contract outbox through the batch endpoint whenever the device is online.
+ * Failed drains are retried by WorkManager with exponential backoff; each schedule also
+ * gets a random start delay so queued edits go out together and devices that reconnect
+ * at the same moment do not all hit the server at once.
+ */
+public class ContractOutboxWorker extends Worker {
+    private static final String WORK_NAME = "contract-outbox";
+    // Output data of a run that had to drop writes
+    public static final String KEY_REJECTED = "rejected";
+    public static final String KEY_ERROR = "error";
+    private static final int BATCH_SIZE = 100;
+    private static final long BACKOFF_SECONDS = 15;
+    private static final long MAX_JITTER_MS = 3000;
+
+    private static final Random random = new Random();
+    private static final MutableLiveData<Long> outboxChanges = new MutableLiveData<>();
+    private static final MutableLiveData<String> rejections = new MutableLiveData<>();
+    private static Context appContext = null;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+        // Pick up anything left over from the previous session
+        schedule();
+    }
+
+    public static void schedule() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ContractOutboxWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .setInitialDelay((long) (random.nextDouble() * MAX_JITTER_MS), TimeUnit.MILLISECONDS)
+                .build();
+        // Append so a write queued while a drain is finishing still gets its own run
+        WorkManager.getInstance(appContext)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request);
+    }
+
+    // Posts whenever queued writes or a drain changed the store or parked a conflict, so open
+    // lists can re-read it
+    public static LiveData<Long> getOutboxChanges() {
+        return outboxChanges;
+    }
+
+    // Why the last run dropped queued writes the server refused
+    public static LiveData<String> getRejections() {
+        return rejections;
+    }
+
+    public static void notifyOutboxChanged() {
+        outboxChanges.postValue(System.currentTimeMillis());
+    }
+
+    public ContractOutboxWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        return drain(new ContractOutbox(ContractStore.getInstance()), ApiClient.getContractApiService());
+    }
+
+    /**
+     * Sends the outbox until it is empty. A batch the server refuses as a whole is sent again
+     * one entry at a time, so the write it cannot accept is found and dropped instead of blocking
+     * everything queued after it. Dropped writes make the run fail, with their count and the
+     * last reason in the output data and on {@link #getRejections()}.
+     */
+    static Result drain(ContractOutbox outbox, ContractApiService apiService) {
+        boolean changed = false;
+        // Drops to 1 while looking for the entry that got a whole batch refused
+        int[] batchSize = {BATCH_SIZE};
+        int rejected = 0;
+        String lastReason = null;
+        // Entries already rewritten with a merge in this run; a second conflict is reported
+        Set<Long> mergedEntries = new HashSet<>();
+
+        try {
+            List<OutboxEntry> entries;
+            // Store and outbox access goes through the repository's disk thread, so edits queued
+            // while a batch is in flight land either before the peek or after the results
+            while (!(entries = ContractRepository.runOnDiskThread(() -> outbox.peek(batchSize[0]))).isEmpty()) {
+                List<ContractOperation> operations = new ArrayList<>(entries.size());
+                for (OutboxEntry entry : entries) {
+                    operations.add(toOperation(entry));
+                }
+
+                Response<ApiResponse<List<ContractBatchResult>>> response =
+                        apiService.batchContracts(new ContractBatchRequest(operations)).execute();
+                if (!response.isSuccessful() || response.body() == null || response.body().getData() == null) {
+                    int status = response.code();
+                    AppLog.w("ContractOutboxWorker", "Outbox batch rejected: " + status);
+                    if (isTransient(status)) {
+                        return Result.retry();
+                    }
+                    if (status == 401 || status == 403) {
+                        // Not the writes' fault; they go out once the user is signed in again
+                        return Result.failure();
+                    }
+                    if (entries.size() > 1) {
+                        // Something in the batch is malformed; find it by sending one entry at a time
+                        batchSize[0] = 1;
+                        continue;
+                    }
+                    reject(outbox, entries.get(0), "HTTP " + status);
+                    changed = true;
+                    rejected++;
+                    lastReason = "HTTP " + status;
+                    batchSize[0] = BATCH_SIZE;
+                    continue;
+                }
+
+                ContractBatchResult[] byIndex = new ContractBatchResult[entries.size()];
+                for (ContractBatchResult result : response.body().getData()) {
+                    if (result != null && result.getIndex() >= 0 && result.getIndex() < byIndex.length) {
+                        byIndex[result.getIndex()] = result;
+                    }
+                }
+
+                boolean retry = false;
+                for (int i = 0; i < entries.size(); i++) {
+                    final OutboxEntry entry = entries.get(i);
+                    final ContractBatchResult result = byIndex[i];
+                    if (result == null || (!result.isSuccessful() && isTransient(result.getStatus()))) {
+                        retry = true;
+                        continue;
+                    }
+                    changed = true;
+                    if (result.isSuccessful()) {
+                        applyResult(outbox, entry, result.getData());
+                    } else if (ContractConflict.isVersionConflict(result.getStatus())
+                            && ContractOperation.UPDATE.equals(entry.getType())) {
+                        resolveConflict(outbox, apiService, entry, result.getData(), mergedEntries);
+                    } else {
+                        reject(outbox, entry, result.getMessage());
+                        rejected++;
+                        lastReason = result.getMessage();
+                    }
+                }
+
+                if (retry) {
+                    return Result.retry();
+                }
+            }
+        } catch (IOException e) {
+            AppLog.w("ContractOutboxWorker", "Outbox drain failed, will retry", e);
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } finally {
+            if (changed) {
+                notifyOutboxChanged();
+            }
+        }
+
+        if (rejected == 0) {
+            return Result.success();
+        }
+        String message = rejected + (rejected == 1 ? " change was" : " changes were")
+                + " refused by the server and discarded" + (lastReason != null ? ": " + lastReason : "");
+        rejections.postValue(message);
+        return Result.failure(new Data.Builder()
+                .putInt(KEY_REJECTED, rejected)
+                .putString(KEY_ERROR, message)
+                .build());
+    }
+
+    // The server will never accept this write; drop it rather than block the queue
+    private static void reject(ContractOutbox outbox, OutboxEntry entry, String reason) throws InterruptedException {
+        AppLog.w("ContractOutboxWorker", "Dropping " + entry.getType()
+                + " for contract " + entry.getContractId() + ": " + reason);
+        ContractRepository.runOnDiskThread(() -> {
+            outbox.discard(entry);
+            return null;
+        });
+        if (ContractOperation.CREATE.equals(entry.getType())) {
+            ContractRepository.getMemoryCache().remove(entry.getLocalId());
+        }
+    }
+
+    // Merges a queued update that lost against a newer server version. When the entry cannot be
+    // merged, or was merged once already, it is parked in the outbox until the user picks a side
+    private static void resolveConflict(ContractOutbox outbox, ContractApiService apiService, OutboxEntry entry,
+                                        Contract current, Set<Long> mergedEntries) throws IOException, InterruptedException {
+        if (current == null) {
+            Response<ApiResponse<Contract>> response = apiService.getContractById(entry.getContractId()).execute();
+            if (!response.isSuccessful() || response.body() == null || response.body().getData() == null) {
+                throw new IOException("Could not load contract " + entry.getContractId() + " to merge: " + response.code());
+            }
+            current = response.body().getData();
+        }
+
+        final Contract server = current;
+        ContractConflict conflict = ContractConflict.resolve(entry.getBase(), entry.getContract(), server);
+        if (conflict.isResolvable() && mergedEntries.add(entry.getId())) {
+            final Contract merged = conflict.getMerged();
+            // False when the user edited the contract again meanwhile; that edit is sent next round
+            if (ContractRepository.runOnDiskThread(() -> outbox.replaceUpdate(entry, merged, server))) {
+                ContractRepository.getMemoryCache().put(merged);
+            }
+            return;
+        }
+
+        AppLog.w("ContractOutboxWorker", "Unresolvable edit conflict: " + conflict);
+        ContractRepository.runOnDiskThread(() -> {
+            outbox.markConflict(entry, server);
+            return null;
+        });
+    }
+
+    private static ContractOperation toOperation(OutboxEntry entry) {
+        if (ContractOperation.CREATE.equals(entry.getType())) {
+            return ContractOperation.create(entry.getContract());
+        } else if (ContractOperation.UPDATE.equals(entry.getType())) {
+            return ContractOperation.update(entry.getContractId(), entry.getContract());
+        }
+        return ContractOperation.delete(entry.getContractId());
+    }
+
+    // The server now holds saved; keeps any write queued for the contract while it was in flight
+    private static void applyResult(ContractOutbox outbox, OutboxEntry entry, Contract saved) throws InterruptedException {
+        Contract stored = ContractRepository.runOnDiskThread(() -> outbox.complete(entry, saved));
+        if (ContractOperation.CREATE.equals(entry.getType())) {
+            // The placeholder row was swapped for the contract under its server id
+            ContractRepository.getMemoryCache().remove(entry.getLocalId());
+        }
+        if (stored != null) {
+            ContractRepository.getMemoryCache().put(stored);
+        } else if (entry.getContractId() != null) {
+            ContractRepository.getMemoryCache().remove(entry.getContractId());
+        }
+    }
+
+    private static boolean isTransient(int status) {
+        return status == 0 || status == 408 || status == 429 || status >= 500;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Locale;
 import co.dtc.fieldwork.pactflow.R;
 import co.dtc.fieldwork.pactflow.model.Contract;
 import co.dtc.fieldwork.pactflow.repository.ContractRepository;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
 import co.dtc.fieldwork.pactflow.viewmodel.ContractViewModel;
 
 public class CreateContractActivity extends AppCompatActivity {
@@ -134,7 +135,9 @@ public class CreateContractActivity extends AppCompatActivity {
         String endDate = etEndDate.getText() != null ? etEndDate.getText().toString().trim() : "";
         boolean isFinalized = ((android.widget.CheckBox) findViewById(R.id.cbIsFinalized)).isChecked();
 
-        android.util.Log.d("CreateContract", "Saving contract: " + title);
+        if (AppLog.DEBUG) {
+            AppLog.d("CreateContract", "Saving contract: " + title);
+        }
 
         if (title.isEmpty()) {
             etTitle.setError("Title is required");
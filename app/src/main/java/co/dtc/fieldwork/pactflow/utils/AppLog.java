@@ -0,0 +1,52 @@
+package co.dtc.fieldwork.pactflow.utils;
+
+import android.util.Log;
+
+import co.dtc.fieldwork.pactflow.BuildConfig;
+
+/**
+ * Leveled logging. Verbose, debug and info only exist in debug builds: {@link #DEBUG} is a
+ * compile-time constant, so the bodies below and any {@code if (AppLog.DEBUG)} block are
+ * compiled out of release builds. Wrap debug logging in that check: it also skips building the
+ * message. Warnings and errors are always logged.
+ */
+public final class AppLog {
+    public static final boolean DEBUG = BuildConfig.DEBUG;
+
+    private AppLog() {
+    }
+
+    public static void v(String tag, String message) {
+        if (DEBUG) {
+            Log.v(tag, message);
+        }
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (DEBUG) {
+            Log.i(tag, message);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        Log.w(tag, message);
+    }
+
+    public static void w(String tag, String message, Throwable t) {
+        Log.w(tag, message, t);
+    }
+
+    public static void e(String tag, String message) {
+        Log.e(tag, message);
+    }
+
+    public static void e(String tag, String message, Throwable t) {
+        Log.e(tag, message, t);
+    }
+}
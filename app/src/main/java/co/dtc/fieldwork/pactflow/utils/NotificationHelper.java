@@ -32,7 +32,7 @@ public class NotificationHelper {
 
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            android.util.Log.d("NotificationHelper", "Creating notification channel");
+            AppLog.d("NotificationHelper", "Creating notification channel");
             NotificationChannel channel = new NotificationChannel(
                     CHANNEL_ID,
                     CHANNEL_NAME,
@@ -44,7 +44,7 @@ public class NotificationHelper {
             channel.enableVibration(true);
             channel.setVibrationPattern(new long[]{100, 200, 300, 400, 500});
             notificationManager.createNotificationChannel(channel);
-            android.util.Log.d("NotificationHelper", "Notification channel created");
+            AppLog.d("NotificationHelper", "Notification channel created");
         }
     }
 
@@ -55,17 +55,19 @@ public class NotificationHelper {
 
     public void showContractCreatedNotification(Contract contract) {
         if (!areNotificationsEnabled()) {
-            android.util.Log.d("NotificationHelper", "Notifications are disabled in settings");
+            AppLog.d("NotificationHelper", "Notifications are disabled in settings");
             return;
         }
 
-        android.util.Log.d("NotificationHelper", "Preparing to show notification for contract: " + contract.getTitle());
+        if (AppLog.DEBUG) {
+            AppLog.d("NotificationHelper", "Preparing to show notification for contract: " + contract.getTitle());
+        }
 
         try {
             // Create an intent for when the notification is tapped
             Intent intent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
             if (intent == null) {
-                android.util.Log.e("NotificationHelper", "Launch intent is null");
+                AppLog.e("NotificationHelper", "Launch intent is null");
                 return;
             }
 
@@ -77,7 +79,7 @@ public class NotificationHelper {
                     PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
             );
 
-            android.util.Log.d("NotificationHelper", "Building notification");
+            AppLog.d("NotificationHelper", "Building notification");
             // Build the notification
             Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
                     .setSmallIcon(R.drawable.pf_icon_bw)
@@ -94,12 +96,12 @@ public class NotificationHelper {
             // Show the notification
             if (notificationManager != null) {
                 notificationManager.notify(NOTIFICATION_ID, notification);
-                android.util.Log.d("NotificationHelper", "Notification shown successfully");
+                AppLog.d("NotificationHelper", "Notification shown successfully");
             } else {
-                android.util.Log.e("NotificationHelper", "NotificationManager is null");
+                AppLog.e("NotificationHelper", "NotificationManager is null");
             }
         } catch (Exception e) {
-            android.util.Log.e("NotificationHelper", "Error showing notification: " + e.getMessage(), e);
+            AppLog.e("NotificationHelper", "Error showing notification: " + e.getMessage(), e);
         }
     }
 }
@@ -1,16 +1,32 @@
 package co.dtc.fieldwork.pactflow.viewmodel;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Future;
 
+import co.dtc.fieldwork.pactflow.api.request.ContractFilter;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
 import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.repository.ContractConflict;
+import co.dtc.fieldwork.pactflow.repository.ContractPagingSource;
 import co.dtc.fieldwork.pactflow.repository.ContractRepository;
+import co.dtc.fieldwork.pactflow.sync.ContractOutboxWorker;
+import co.dtc.fieldwork.pactflow.utils.AppLog;
 import co.dtc.fieldwork.pactflow.utils.NotificationHelper;
 
 public class ContractViewModel extends ViewModel {
@@ -19,12 +35,56 @@ public class ContractViewModel extends ViewModel {
     private final MutableLiveData<List<Contract>> contractsLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
+    private final MutableLiveData<ContractConflict> conflictLiveData = new MutableLiveData<>();
     private List<Contract> allContracts = new ArrayList<>();
+    private final ContractPagingSource pagingSource;
+    private String currentQuery;
+    private int searchGeneration = 0;
+    private Future<?> runningSearch;
+    // Keystrokes closer together than this collapse into one search
+    private static final long SEARCH_DEBOUNCE_MS = 200;
+    // Debounces searches and brings store changes over from the disk thread
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable pendingSearch = () -> {
+        if (currentQuery != null) {
+            runSearch(currentQuery);
+        }
+    };
+    public static final long DEFAULT_REFRESH_TTL_MILLIS = 5 * 60 * 1000;
+    // Set once the first view has asked for the list; later views reuse what is already loaded
+    private boolean loadRequested = false;
+    private long refreshTtlMillis = DEFAULT_REFRESH_TTL_MILLIS;
+    // Filtered list shown instead of the local window while a filter is set. Pages come from
+    // the server, or from the store once a server page has failed
+    private static final int FILTER_PAGE_SIZE = 50;
+    private ContractFilter activeFilter;
+    private List<Contract> filteredContracts = new ArrayList<>();
+    private String filterCursor;
+    private boolean filterFromStore = false;
+    private boolean filterEndReached = false;
+    private boolean filterPageLoading = false;
+    private int filterGeneration = 0;
+    // Latest detail request; older responses must not overwrite contractLiveData
+    private int contractRequestGeneration = 0;
 
     private NotificationHelper notificationHelper;
 
     public ContractViewModel() {
         this.repository = new ContractRepository();
+        this.pagingSource = repository.createPagingSource();
+        ContractOutboxWorker.getOutboxChanges().observeForever(outboxObserver);
+        ContractOutboxWorker.getRejections().observeForever(rejectionObserver);
+        repository.addChangeListener(storeListener);
+        loadConflict();
+    }
+
+    @Override
+    protected void onCleared() {
+        ContractOutboxWorker.getOutboxChanges().removeObserver(outboxObserver);
+        ContractOutboxWorker.getRejections().removeObserver(rejectionObserver);
+        repository.removeChangeListener(storeListener);
+        mainHandler.removeCallbacks(pendingSearch);
+        cancelSearch();
     }
 
     // Initialize with context when needed
@@ -50,85 +110,451 @@ public class ContractViewModel extends ViewModel {
         return errorMessage;
     }
 
+    // Oldest queued edit that collided with someone else's and could not be merged automatically;
+    // conflicts are kept in the outbox and shown one at a time
+    public LiveData<ContractConflict> getConflicts() {
+        return conflictLiveData;
+    }
+
+    // Queues the user's values again on top of the version that beat them
+    public void keepLocalEdit(ContractConflict conflict) {
+        resolveConflict(conflict, true);
+    }
+
+    // Drops the user's edit in favour of the version that beat it
+    public void keepServerVersion(ContractConflict conflict) {
+        resolveConflict(conflict, false);
+    }
+
+    private void resolveConflict(ContractConflict conflict, boolean keepLocal) {
+        conflictLiveData.setValue(null);
+        repository.resolveConflict(conflict, keepLocal, new ContractRepository.ContractCallback() {
+            @Override
+            public void onSuccess(Contract contract) {
+                loadConflict();
+            }
+
+            @Override
+            public void onError(String message) {
+                errorMessage.setValue(message);
+            }
+        });
+    }
+
+    private void loadConflict() {
+        repository.getNextConflict(new ContractRepository.ConflictCallback() {
+            @Override
+            public void onSuccess(ContractConflict conflict) {
+                // The one on screen is reported again until it is resolved
+                if (!isSameConflict(conflict, conflictLiveData.getValue())) {
+                    conflictLiveData.setValue(conflict);
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                errorMessage.setValue(message);
+            }
+        });
+    }
+
+    private static boolean isSameConflict(ContractConflict a, ContractConflict b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return Objects.equals(a.getServer().getId(), b.getServer().getId())
+                && a.getServer().getVersion() == b.getServer().getVersion();
+    }
+
     public void loadContracts() {
-        android.util.Log.d("ContractViewModel", "Loading contracts...");
+        AppLog.d("ContractViewModel", "Loading contracts...");
         isLoading.setValue(true);
+        pagingSource.refresh(pageCallback);
+    }
 
-        repository.getAllContracts(new ContractRepository.ContractsListCallback() {
-            @Override
-            public void onSuccess(List<Contract> contracts) {
-                android.util.Log.d("ContractViewModel", "Successfully loaded " + (contracts != null ? contracts.size() : 0) + " contracts");
-                isLoading.postValue(false);
-                allContracts = contracts != null ? contracts : new ArrayList<>();
-                contractsLiveData.postValue(allContracts);
-
-                // Log the first few contracts for debugging
-                if (allContracts != null && !allContracts.isEmpty()) {
-                    int maxLogs = Math.min(allContracts.size(), 3);
-                    for (int i = 0; i < maxLogs; i++) {
-                        Contract c = allContracts.get(i);
-                        android.util.Log.d("ContractViewModel", String.format(
-                                "Contract[%d]: %s, ID: %s, isFinalized: %s",
-                                i, c.getTitle(), c.getId(), c.isFinalized()
-                        ));
+    /**
+     * Stale-while-revalidate: shows the stored list straight away (once per model, later views
+     * re-render what is already loaded) and syncs in the background only when the last sync is
+     * older than the refresh TTL. Synced changes patch the window and reach the list as a diff.
+     */
+    public void showContracts(boolean online) {
+        if (!loadRequested) {
+            loadRequested = true;
+            loadContracts();
+        }
+        if (online) {
+            repository.syncContractsIfStale(refreshTtlMillis, syncCallback);
+        }
+    }
+
+    // How old the last sync may be before showContracts revalidates; 0 always revalidates
+    public void setRefreshTtlMillis(long refreshTtlMillis) {
+        this.refreshTtlMillis = refreshTtlMillis;
+    }
+
+    // Forced sync, e.g. pull-to-refresh
+    public void refreshContracts() {
+        isLoading.setValue(true);
+        repository.syncContracts(syncCallback);
+    }
+
+    // Sync the local store with the server; the window is patched as changes are written
+    private final ContractRepository.SyncCallback syncCallback = new ContractRepository.SyncCallback() {
+        @Override
+        public void onContractsStored() {
+            // Rows past the end of a full window will be read when the user scrolls there
+            if (pagingSource.isAtEnd()) {
+                pagingSource.invalidate(pageCallback);
+            }
+        }
+
+        @Override
+        public void onChanges(List<Contract> upserts, List<Long> deletedIds) {
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractViewModel", "Delta sync: " + upserts.size() + " upserts, " + deletedIds.size() + " deletions");
+            }
+            if (pagingSource.applyChanges(upserts, deletedIds, pageCallback)) {
+                publishWindow(pagingSource.snapshot());
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            isLoading.postValue(false);
+        }
+
+        @Override
+        public void onError(String message) {
+            isLoading.postValue(false);
+            errorMessage.postValue(message);
+        }
+    };
+
+    public void loadNextPage() {
+        if (activeFilter != null) {
+            loadFilteredPage();
+        } else if (pagingSource.canLoadNext()) {
+            pagingSource.loadNext(pageCallback);
+        }
+    }
+
+    public void loadPreviousPage() {
+        // The filtered list only grows at the end
+        if (activeFilter == null && pagingSource.canLoadPrevious()) {
+            pagingSource.loadPrevious(pageCallback);
+        }
+    }
+
+    private final ContractPagingSource.Callback pageCallback = new ContractPagingSource.Callback() {
+        @Override
+        public void onWindowChanged(List<Contract> window) {
+            if (AppLog.DEBUG) {
+                AppLog.d("ContractViewModel", "Contract window now holds " + window.size() + " contracts");
+            }
+            isLoading.postValue(false);
+            publishWindow(window);
+        }
+
+        @Override
+        public void onError(String message) {
+            isLoading.postValue(false);
+            errorMessage.postValue(message);
+        }
+    };
+
+    // A copy; change the filter through setFilter
+    public ContractFilter getFilter() {
+        return activeFilter != null ? new ContractFilter(activeFilter) : null;
+    }
+
+    /**
+     * Shows only the contracts matching {@code filter}, in its sort order, fetched page by page
+     * from the server or, when that fails, from the store. A null or empty filter goes back to
+     * the local list. The filter is copied, so later changes to it have no effect.
+     */
+    public void setFilter(ContractFilter filter) {
+        ContractFilter next = filter != null && !filter.isEmpty() ? new ContractFilter(filter) : null;
+        if (next == null ? activeFilter == null : next.equals(activeFilter)) {
+            return;
+        }
+        activeFilter = next;
+        filterGeneration++;
+        filteredContracts = new ArrayList<>();
+        filterCursor = null;
+        filterFromStore = false;
+        filterEndReached = false;
+        filterPageLoading = false;
+        if (activeFilter == null) {
+            isLoading.setValue(false);
+            showCurrentList();
+        } else {
+            loadFilteredPage();
+        }
+    }
+
+    private void loadFilteredPage() {
+        if (filterPageLoading || filterEndReached) {
+            return;
+        }
+        filterPageLoading = true;
+        isLoading.setValue(true);
+        final int generation = filterGeneration;
+        if (filterFromStore) {
+            // Patches keep the list a prefix of the store's filtered rows, so its size is the offset
+            repository.getLocalFilteredPage(activeFilter, filteredContracts.size(), FILTER_PAGE_SIZE, new ContractRepository.ContractsListCallback() {
+                @Override
+                public void onSuccess(List<Contract> contracts) {
+                    if (generation == filterGeneration) {
+                        appendFilteredPage(contracts, contracts.size() < FILTER_PAGE_SIZE);
                     }
                 }
+
+                @Override
+                public void onError(String message) {
+                    if (generation == filterGeneration) {
+                        onFilteredPageError(message);
+                    }
+                }
+            });
+            return;
+        }
+        repository.getContractSummariesPage(activeFilter, filterCursor, FILTER_PAGE_SIZE, new ContractRepository.ContractsPageCallback() {
+            @Override
+            public void onSuccess(List<Contract> contracts, String nextCursor) {
+                // Results for a filter that has since changed are dropped
+                if (generation != filterGeneration) {
+                    return;
+                }
+                filterCursor = nextCursor;
+                appendFilteredPage(contracts, nextCursor == null);
             }
 
             @Override
             public void onError(String message) {
-                isLoading.postValue(false);
-                errorMessage.postValue(message);
+                if (generation != filterGeneration) {
+                    return;
+                }
+                // Offline or the server failed; the store has what was synced plus queued edits
+                AppLog.w("ContractViewModel", "Filtered page failed, filtering the local store: " + message);
+                filterFromStore = true;
+                filterPageLoading = false;
+                loadFilteredPage();
             }
         });
     }
 
+    private void appendFilteredPage(List<Contract> contracts, boolean last) {
+        filterPageLoading = false;
+        filterEndReached = last;
+        isLoading.setValue(false);
+        List<Contract> combined = new ArrayList<>(filteredContracts);
+        for (Contract contract : contracts) {
+            // A patch may already have put it in the list
+            if (indexOfId(combined, contract.getId()) < 0) {
+                combined.add(contract);
+            }
+        }
+        filteredContracts = combined;
+        showFilteredList();
+    }
+
+    private void onFilteredPageError(String message) {
+        filterPageLoading = false;
+        isLoading.setValue(false);
+        errorMessage.setValue(message);
+    }
+
+    // Search results come from the store and are filtered there, so only the plain list changes
+    private void showFilteredList() {
+        if (currentQuery == null) {
+            contractsLiveData.setValue(filteredContracts);
+        }
+    }
+
+    // Store writes from syncs and queued edits, applied to the filtered list on the main thread
+    private final ContractStore.ChangeListener storeListener = new ContractStore.ChangeListener() {
+        @Override
+        public void onContractsUpserted(Collection<Contract> contracts) {
+            List<Contract> upserts = new ArrayList<>(contracts);
+            mainHandler.post(() -> patchFilteredList(upserts, Collections.<Long>emptySet()));
+        }
+
+        @Override
+        public void onContractsDeleted(Collection<Long> ids) {
+            Set<Long> deletedIds = new HashSet<>(ids);
+            mainHandler.post(() -> patchFilteredList(Collections.<Contract>emptyList(), deletedIds));
+        }
+    };
+
+    // Drops deleted and no longer matching contracts and moves changed ones to their sort position.
+    // A contract sorting after the last loaded row is left for the page that will contain it
+    private void patchFilteredList(List<Contract> upserts, Set<Long> deletedIds) {
+        if (activeFilter == null) {
+            return;
+        }
+        List<Contract> patched = new ArrayList<>(filteredContracts);
+        boolean changed = !deletedIds.isEmpty() && patched.removeIf(contract -> deletedIds.contains(contract.getId()));
+        Comparator<Contract> order = activeFilter.comparator();
+        for (Contract contract : upserts) {
+            int existing = indexOfId(patched, contract.getId());
+            if (existing >= 0) {
+                patched.remove(existing);
+                changed = true;
+            }
+            if (activeFilter.matches(contract)) {
+                int at = Collections.binarySearch(patched, contract, order);
+                at = at < 0 ? -at - 1 : at;
+                if (at < patched.size() || filterEndReached) {
+                    patched.add(at, contract);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            filteredContracts = patched;
+            showFilteredList();
+        }
+    }
+
+    private static int indexOfId(List<Contract> contracts, Long id) {
+        for (int i = 0; i < contracts.size(); i++) {
+            if (id != null && id.equals(contracts.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The list shown when no search is active
+    private List<Contract> currentList() {
+        return activeFilter != null ? filteredContracts : allContracts;
+    }
+
+    private void showCurrentList() {
+        if (currentQuery == null) {
+            contractsLiveData.setValue(currentList());
+        } else {
+            runSearch(currentQuery);
+        }
+    }
+
+    private final Observer<Long> outboxObserver = this::onOutboxChanged;
+
+    // A message posted before this view model existed was already shown
+    private final String shownRejection = ContractOutboxWorker.getRejections().getValue();
+    private final Observer<String> rejectionObserver = message -> {
+        if (message != null && message != shownRejection) {
+            errorMessage.setValue(message);
+        }
+    };
+
+    // Re-read the window when queued writes land in the store or reach the server
+    private void onOutboxChanged(Long changedAt) {
+        if (changedAt != null) {
+            pagingSource.invalidate(pageCallback);
+            loadConflict();
+        }
+    }
+
+    private void publishWindow(List<Contract> window) {
+        allContracts = window;
+        if (activeFilter != null && currentQuery == null) {
+            // The filtered list is on screen; the window is shown again when the filter is cleared
+            return;
+        }
+        if (currentQuery == null) {
+            contractsLiveData.postValue(allContracts);
+        } else {
+            // The store changed underneath an active search
+            runSearch(currentQuery);
+        }
+    }
+
+    // Called per keystroke: waits for typing to pause, then searches off the main thread
     public void searchContracts(String query) {
+        mainHandler.removeCallbacks(pendingSearch);
         if (query == null || query.trim().isEmpty()) {
-            contractsLiveData.setValue(allContracts);
+            currentQuery = null;
+            cancelSearch();
+            contractsLiveData.setValue(currentList());
             return;
         }
 
-        String searchQuery = query.toLowerCase().trim();
-        List<Contract> filteredList = new ArrayList<>();
+        String trimmed = query.trim();
+        if (trimmed.equals(currentQuery) && runningSearch != null && !runningSearch.isDone()) {
+            return;
+        }
+        currentQuery = trimmed;
+        mainHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
 
-        for (Contract contract : allContracts) {
-            if (contract.getTitle().toLowerCase().contains(searchQuery) ||
-                    contract.getDescription().toLowerCase().contains(searchQuery) ||
-                    contract.getContractType().toLowerCase().contains(searchQuery)) {
-                filteredList.add(contract);
-            }
+    private void cancelSearch() {
+        searchGeneration++;
+        if (runningSearch != null) {
+            runningSearch.cancel(true);
+            runningSearch = null;
         }
+    }
 
-        contractsLiveData.setValue(filteredList);
+    private void runSearch(final String query) {
+        cancelSearch();
+        final int generation = searchGeneration;
+        runningSearch = repository.searchContracts(query, new ContractRepository.ContractsListCallback() {
+            @Override
+            public void onSuccess(List<Contract> contracts) {
+                // A newer query or a cleared search wins over this result
+                if (generation == searchGeneration) {
+                    contractsLiveData.setValue(applyFilter(contracts));
+                }
+            }
+
+            @Override
+            public void onError(String message) {
+                errorMessage.setValue(message);
+            }
+        });
+    }
+
+    // Search results while a filter is set: only matching contracts, in the filter's order
+    private List<Contract> applyFilter(List<Contract> contracts) {
+        if (activeFilter == null) {
+            return contracts;
+        }
+        List<Contract> matching = new ArrayList<>();
+        for (Contract contract : contracts) {
+            if (activeFilter.matches(contract)) {
+                matching.add(contract);
+            }
+        }
+        Collections.sort(matching, activeFilter.comparator());
+        return matching;
     }
 
     public void createContract(Contract contract, ContractRepository.ContractCallback callback) {
-        android.util.Log.d("ContractViewModel", "Creating new contract: " + contract.getTitle());
+        if (AppLog.DEBUG) {
+            AppLog.d("ContractViewModel", "Creating new contract: " + contract.getTitle());
+        }
 
-        repository.createContract(contract, new ContractRepository.ContractCallback() {
+        // Saved locally and queued; the outbox worker sends it when the device is online
+        repository.queueCreateContract(contract, new ContractRepository.ContractCallback() {
             @Override
             public void onSuccess(Contract contract) {
-                android.util.Log.d("ContractViewModel", "Contract created successfully, ID: " + contract.getId());
-
-                // Add the new contract to the list
-                List<Contract> currentContracts = contractsLiveData.getValue();
-                if (currentContracts == null) {
-                    currentContracts = new ArrayList<>();
+                if (AppLog.DEBUG) {
+                    AppLog.d("ContractViewModel", "Contract queued, local ID: " + contract.getId());
                 }
-                currentContracts.add(contract);
-                contractsLiveData.setValue(currentContracts);
 
                 // Show notification if helper is initialized
                 if (notificationHelper != null) {
                     try {
-                        android.util.Log.d("ContractViewModel", "Showing notification for contract: " + contract.getId());
+                        if (AppLog.DEBUG) {
+                            AppLog.d("ContractViewModel", "Showing notification for contract: " + contract.getId());
+                        }
                         notificationHelper.showContractCreatedNotification(contract);
                     } catch (Exception e) {
-                        android.util.Log.e("ContractViewModel", "Error showing notification: " + e.getMessage(), e);
+                        AppLog.e("ContractViewModel", "Error showing notification: " + e.getMessage(), e);
                     }
                 } else {
-                    android.util.Log.w("ContractViewModel", "NotificationHelper is null, cannot show notification");
+                    AppLog.w("ContractViewModel", "NotificationHelper is null, cannot show notification");
                 }
 
                 // Notify success
@@ -148,11 +574,14 @@ public class ContractViewModel extends ViewModel {
 
         public void getContractById(Long id) {
             isLoading.setValue(true);
+            final int generation = ++contractRequestGeneration;
             repository.getContractById(id, new ContractRepository.ContractCallback() {
                 @Override
                 public void onSuccess(Contract contract) {
                     isLoading.postValue(false);
-                    contractLiveData.postValue(contract);
+                    if (generation == contractRequestGeneration) {
+                        contractLiveData.postValue(contract);
+                    }
                 }
 
                 @Override
@@ -165,11 +594,14 @@ public class ContractViewModel extends ViewModel {
 
         public void updateContract(Long id, Contract contract) {
             isLoading.setValue(true);
-            repository.updateContract(id, contract, new ContractRepository.ContractCallback() {
+            final int generation = ++contractRequestGeneration;
+            repository.queueUpdateContract(id, contract, new ContractRepository.ContractCallback() {
                 @Override
                 public void onSuccess(Contract contract) {
                     isLoading.postValue(false);
-                    contractLiveData.postValue(contract);
+                    if (generation == contractRequestGeneration) {
+                        contractLiveData.postValue(contract);
+                    }
                 }
 
                 @Override
@@ -182,12 +614,14 @@ public class ContractViewModel extends ViewModel {
 
         public void deleteContract(Long id) {
             isLoading.setValue(true);
-            repository.deleteContract(id, new ContractRepository.DeleteCallback() {
+            repository.queueDeleteContract(id, new ContractRepository.DeleteCallback() {
                 @Override
                 public void onSuccess() {
                     isLoading.postValue(false);
-                    // Refresh the contracts list after deletion
-                    loadContracts();
+                    // Drop the deleted contract locally instead of reloading the list
+                    if (pagingSource.applyChanges(null, Collections.singletonList(id), pageCallback)) {
+                        publishWindow(pagingSource.snapshot());
+                    }
                 }
 
                 @Override
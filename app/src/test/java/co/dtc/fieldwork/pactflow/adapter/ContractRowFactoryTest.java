@@ -0,0 +1,48 @@
+package co.dtc.fieldwork.pactflow.adapter;
+
+import org.junit.Test;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+public class ContractRowFactoryTest {
+
+    @Test
+    public void unchangedContractReusesRow() {
+        ContractRowFactory factory = new ContractRowFactory();
+        ContractRow first = factory.buildRow(contract(false));
+
+        assertSame(first, factory.buildRow(contract(false)));
+    }
+
+    @Test
+    public void summaryAndWholeContractGetTheirOwnRows() {
+        ContractRowFactory factory = new ContractRowFactory();
+        Contract summary = contract(true);
+        Contract whole = contract(false);
+
+        ContractRow summaryRow = factory.buildRow(summary);
+        ContractRow wholeRow = factory.buildRow(whole);
+
+        assertNotSame(summaryRow, wholeRow);
+        assertSame(whole, wholeRow.getContract());
+        assertTrue(summaryRow.hasSameContent(wholeRow));
+    }
+
+    private static Contract contract(boolean summary) {
+        Contract contract = new Contract();
+        contract.setId(7L);
+        contract.setVersion(2);
+        contract.setTitle("Pump repair");
+        contract.setAmount(1200.0);
+        contract.setContractType("Service");
+        contract.setStartDate("2025-01-10");
+        contract.setEndDate("2025-03-31");
+        if (!summary) {
+            contract.setDescription("Annual service of the district pump");
+        }
+        contract.setSummary(summary);
+        return contract;
+    }
+}
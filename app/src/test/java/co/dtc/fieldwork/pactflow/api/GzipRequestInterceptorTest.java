@@ -0,0 +1,116 @@
+package co.dtc.fieldwork.pactflow.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.Body;
+import retrofit2.http.POST;
+
+import static org.junit.Assert.*;
+
+// Runs under Robolectric because the interceptor logs through android.util.Log
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class GzipRequestInterceptorTest {
+    private MockWebServer server;
+    private UploadApi api;
+
+    interface UploadApi {
+        @CompressRequest
+        @POST("upload")
+        Call<ResponseBody> upload(@Body RequestBody body);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new GzipRequestInterceptor())
+                .build();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .build()
+                .create(UploadApi.class);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void successWithoutGzipInAcceptEncodingKeepsCompressing() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Accept-Encoding", "identity"));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertEquals(200, upload().code());
+        assertEquals(200, upload().code());
+
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void unsupportedMediaTypeResendsUncompressedAndStopsCompressing() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(415));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertEquals(200, upload().code());
+        assertEquals(200, upload().code());
+
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        RecordedRequest retried = server.takeRequest();
+        assertNull(retried.getHeader("Content-Encoding"));
+        assertEquals(payload(), retried.getBody().readUtf8());
+        assertNull(server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void unsupportedMediaTypeAcceptingGzipIsNotAboutCompression() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(415).setHeader("Accept-Encoding", "gzip, identity"));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertEquals(415, upload().code());
+        assertEquals(200, upload().code());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+        assertEquals("gzip", server.takeRequest().getHeader("Content-Encoding"));
+    }
+
+    private Response<ResponseBody> upload() throws IOException {
+        Response<ResponseBody> response = api.upload(RequestBody.create(payload(), MediaType.get("application/json"))).execute();
+        if (response.errorBody() != null) {
+            response.errorBody().close();
+        }
+        return response;
+    }
+
+    // Well above the compression threshold and compressible
+    private static String payload() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"title\":\"Pump repair\",\"amount\":1200.0}");
+        }
+        return json.append("]").toString();
+    }
+}
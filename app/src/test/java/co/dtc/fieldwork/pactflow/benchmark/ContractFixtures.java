@@ -0,0 +1,111 @@
+package co.dtc.fieldwork.pactflow.benchmark;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Deterministic synthetic contracts for benchmarks. Sizes and shapes roughly follow
+ * what the field accounts return: short titles, a paragraph of description and a
+ * template a few hundred characters long.
+ */
+public final class ContractFixtures {
+    private static final String[] TYPES = {"Service", "Supply", "Lease", "Consulting", "Maintenance", "Employment"};
+    private static final String[] WORDS = {"site", "survey", "pump", "repair", "annual", "district", "water",
+            "supply", "road", "clinic", "school", "install", "grid", "solar", "audit", "fence", "borehole"};
+
+    // Syllables for a larger, skewed vocabulary in search fixtures
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ren", "tu", "sa", "vor", "ne", "pa", "dri",
+            "gul", "ho", "zan", "bi", "te", "qua", "mo", "lis", "fe", "run"};
+
+    private ContractFixtures() {
+    }
+
+    /**
+     * Contracts whose text draws on a vocabulary of several thousand words with a skewed
+     * distribution, so some words appear in most contracts and most words in only a few,
+     * like real titles and descriptions. Word 0 is the most common.
+     */
+    public static List<Contract> createSearchableContracts(int count, long seed) {
+        Random random = new Random(seed);
+        List<Contract> contracts = createContracts(count, seed);
+        for (Contract contract : contracts) {
+            contract.setTitle(vocabularyWords(random, 3 + random.nextInt(4)));
+            contract.setDescription(vocabularyWords(random, 20 + random.nextInt(40)));
+        }
+        return contracts;
+    }
+
+    public static String vocabularyWord(int index) {
+        int first = index % SYLLABLES.length;
+        int second = (index / SYLLABLES.length) % SYLLABLES.length;
+        int third = index / (SYLLABLES.length * SYLLABLES.length);
+        return SYLLABLES[first] + SYLLABLES[second] + (third > 0 ? SYLLABLES[third % SYLLABLES.length] : "");
+    }
+
+    public static int vocabularySize() {
+        return SYLLABLES.length * SYLLABLES.length * SYLLABLES.length;
+    }
+
+    public static List<Contract> createContracts(int count, long seed) {
+        Random random = new Random(seed);
+        List<Contract> contracts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Contract contract = new Contract();
+            contract.setId((long) i + 1);
+            contract.setTitle(words(random, 3 + random.nextInt(4)));
+            contract.setAmount(Math.round(random.nextDouble() * 5_000_000) / 100.0);
+            contract.setWorkflowId((long) random.nextInt(500));
+            contract.setContractType(TYPES[random.nextInt(TYPES.length)]);
+            contract.setDescription(words(random, 20 + random.nextInt(40)));
+            contract.setStartDate(String.format("2025-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            contract.setEndDate(String.format("2026-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            contract.setTemplate(words(random, 60 + random.nextInt(60)));
+            contract.setFinalized(random.nextBoolean());
+            contract.setVersion(1 + random.nextInt(5));
+            contract.setTimestamp(String.valueOf(1_750_000_000_000L + i * 1000L));
+            contracts.add(contract);
+        }
+        return contracts;
+    }
+
+    // Serialises the contracts the way GET contracts returns them
+    public static String toApiResponseJson(List<Contract> contracts) {
+        ApiResponse<List<Contract>> response = new ApiResponse<>();
+        response.setMessage("Contracts retrieved successfully");
+        response.setResponseCode("00");
+        response.setData(contracts);
+        Gson gson = ApiClient.createGson();
+        return gson.toJson(response);
+    }
+
+    private static String vocabularyWords(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            // Cubing skews the picks towards the low, common indexes
+            double r = random.nextDouble();
+            builder.append(vocabularyWord((int) (r * r * r * vocabularySize())));
+        }
+        return builder.toString();
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package co.dtc.fieldwork.pactflow.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.model.BooleanTypeAdapter;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Parse time of a contract list response with Gson's reflective adapter (the
+ * configuration ApiClient used before ContractTypeAdapter) against the hand-written one.
+ * Run with {@code ./gradlew :app:jmh -PjmhArgs=ContractParsingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractParsingBenchmark {
+    private static final Type RESPONSE_TYPE = new TypeToken<ApiResponse<List<Contract>>>() {}.getType();
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private String json;
+    private Gson reflectiveGson;
+    private Gson adapterGson;
+
+    @Setup
+    public void setUp() {
+        json = ContractFixtures.toApiResponseJson(ContractFixtures.createContracts(size, 42));
+        reflectiveGson = new GsonBuilder()
+                .setDateFormat("yyyy-MM-dd'T'HH:mm:ss")
+                .registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
+                .registerTypeAdapter(boolean.class, new BooleanTypeAdapter())
+                .create();
+        adapterGson = ApiClient.createGson();
+
+        // Both paths must produce the same contracts or the comparison is meaningless
+        ApiResponse<List<Contract>> viaReflection = reflectiveGson.fromJson(json, RESPONSE_TYPE);
+        ApiResponse<List<Contract>> viaAdapter = adapterGson.fromJson(json, RESPONSE_TYPE);
+        if (!adapterGson.toJson(viaReflection).equals(adapterGson.toJson(viaAdapter))) {
+            throw new IllegalStateException("Reflective and hand-written adapters disagree");
+        }
+    }
+
+    @Benchmark
+    public ApiResponse<List<Contract>> reflectiveAdapter() {
+        return reflectiveGson.fromJson(json, RESPONSE_TYPE);
+    }
+
+    @Benchmark
+    public ApiResponse<List<Contract>> contractTypeAdapter() {
+        return adapterGson.fromJson(json, RESPONSE_TYPE);
+    }
+}
@@ -0,0 +1,70 @@
+package co.dtc.fieldwork.pactflow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.NumberFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import co.dtc.fieldwork.pactflow.adapter.ContractRow;
+import co.dtc.fieldwork.pactflow.adapter.ContractRowFactory;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * Formatting cost for one list window: the per-bind work ContractAdapter used to do, the
+ * same contracts through a fresh ContractRowFactory, and a refresh served from its cache.
+ * Run with {@code ./gradlew :app:jmh -PjmhArgs=ContractRowBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractRowBenchmark {
+    // ContractPagingSource keeps up to 6 pages of 50
+    @Param({"300"})
+    public int size;
+
+    private List<Contract> contracts;
+    private ContractRowFactory warmFactory;
+
+    @Setup
+    public void setUp() {
+        contracts = ContractFixtures.createContracts(size, 42);
+        warmFactory = new ContractRowFactory();
+        warmFactory.buildRows(contracts);
+    }
+
+    // What onBindViewHolder did for every row, minus the logging
+    @Benchmark
+    public void legacyBindFormatting(Blackhole blackhole) {
+        for (Contract contract : contracts) {
+            blackhole.consume(NumberFormat.getCurrencyInstance().format(contract.getAmount()));
+            String startDate = contract.getStartDate() != null ? contract.getStartDate() : "N/A";
+            String endDate = contract.getEndDate() != null ? contract.getEndDate() : "N/A";
+            blackhole.consume(String.format("%s - %s", startDate, endDate));
+        }
+    }
+
+    @Benchmark
+    public List<ContractRow> buildRowsCold() {
+        return new ContractRowFactory().buildRows(contracts);
+    }
+
+    @Benchmark
+    public List<ContractRow> buildRowsCached() {
+        return warmFactory.buildRows(contracts);
+    }
+}
@@ -0,0 +1,106 @@
+package co.dtc.fieldwork.pactflow.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+import co.dtc.fieldwork.pactflow.repository.ContractSearchIndex;
+
+/**
+ * Cost of one search as ContractViewModel.searchContracts runs it, i.e. a ContractSearchIndex
+ * lookup, against the per-keystroke lowercase scan it replaced. The ViewModel itself needs a
+ * Looper, so the index is measured directly.
+ * Run with {@code ./gradlew :app:jmh -PjmhArgs=ContractSearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractSearchBenchmark {
+    // ContractRepository.MAX_SEARCH_RESULTS
+    private static final int MAX_RESULTS = 500;
+
+    @Param({"50000"})
+    public int size;
+
+    // Resolved against the fixture vocabulary in setUp
+    @Param({"common", "rare", "prefix", "twoTerms"})
+    public String queryKind;
+
+    private String query;
+    private List<Contract> contracts;
+    private ContractSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        contracts = ContractFixtures.createSearchableContracts(size, 42);
+        switch (queryKind) {
+            case "common":
+                query = ContractFixtures.vocabularyWord(0);
+                break;
+            case "rare":
+                query = ContractFixtures.vocabularyWord(ContractFixtures.vocabularySize() / 2);
+                break;
+            case "prefix":
+                // What the user has typed after two characters
+                query = ContractFixtures.vocabularyWord(ContractFixtures.vocabularySize() / 3).substring(0, 2);
+                break;
+            default:
+                query = ContractFixtures.vocabularyWord(3) + " " + ContractFixtures.vocabularyWord(1200);
+                break;
+        }
+        index = new ContractSearchIndex();
+        index.update(contracts);
+    }
+
+    @Benchmark
+    public List<Long> indexSearch() {
+        return index.search(query, MAX_RESULTS);
+    }
+
+    // The old filter, made null-safe so it can run over every fixture
+    @Benchmark
+    public List<Contract> linearScan() {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<Contract> matches = new ArrayList<>();
+        for (Contract contract : contracts) {
+            if (contains(contract.getTitle(), needle)
+                    || contains(contract.getDescription(), needle)
+                    || contains(contract.getContractType(), needle)) {
+                matches.add(contract);
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public ContractSearchIndex buildIndex() {
+        ContractSearchIndex fresh = new ContractSearchIndex();
+        fresh.update(contracts);
+        return fresh;
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase().contains(needle);
+    }
+}
@@ -0,0 +1,77 @@
+package co.dtc.fieldwork.pactflow.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.response.ApiResponse;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+/**
+ * What list rows cost as whole contracts against summaries without description and template:
+ * response bytes (printed once per trial) and parse time. Add {@code -prof gc} for the bytes
+ * allocated per page, most of which the list then keeps alive.
+ * Run with {@code ./gradlew :app:jmh -PjmhArgs='ContractSummaryBenchmark -prof gc'}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContractSummaryBenchmark {
+    private static final Type RESPONSE_TYPE = new TypeToken<ApiResponse<List<Contract>>>() {}.getType();
+
+    // A filtered page and a full paging window
+    @Param({"50", "1000"})
+    public int size;
+
+    private String fullJson;
+    private String summaryJson;
+    private Gson gson;
+
+    @Setup
+    public void setUp() {
+        List<Contract> contracts = ContractFixtures.createContracts(size, 42);
+        fullJson = ContractFixtures.toApiResponseJson(contracts);
+        for (Contract contract : contracts) {
+            // What the server leaves out for fields=SUMMARY_FIELDS
+            contract.setDescription(null);
+            contract.setTemplate(null);
+        }
+        summaryJson = ContractFixtures.toApiResponseJson(contracts);
+        gson = ApiClient.createGson();
+
+        int fullBytes = fullJson.getBytes(StandardCharsets.UTF_8).length;
+        int summaryBytes = summaryJson.getBytes(StandardCharsets.UTF_8).length;
+        System.out.println("# Payload for " + size + " contracts: full " + fullBytes + " B, summary "
+                + summaryBytes + " B (" + (100 * summaryBytes / fullBytes) + "%)");
+    }
+
+    @Benchmark
+    public ApiResponse<List<Contract>> parseFull() {
+        return gson.fromJson(fullJson, RESPONSE_TYPE);
+    }
+
+    @Benchmark
+    public ApiResponse<List<Contract>> parseSummary() {
+        return gson.fromJson(summaryJson, RESPONSE_TYPE);
+    }
+}
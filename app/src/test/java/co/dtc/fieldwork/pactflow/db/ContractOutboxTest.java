@@ -0,0 +1,208 @@
+package co.dtc.fieldwork.pactflow.db;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.api.request.ContractOperation;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes queued while an outbox entry is being sent, i.e. between the worker's peek and
+ * its call to complete, must survive the completion.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class ContractOutboxTest {
+    private ContractStore store;
+    private ContractOutbox outbox;
+
+    @Before
+    public void setUp() {
+        ContractStore.init(RuntimeEnvironment.getApplication());
+        store = ContractStore.getInstance();
+        store.getWritableDatabase().delete(ContractStore.TABLE_OUTBOX, null, null);
+        store.getWritableDatabase().execSQL("DELETE FROM contracts");
+        outbox = new ContractOutbox(store);
+    }
+
+    @Test
+    public void completeRemovesEntryThatWasNotChanged() {
+        long localId = queueCreate(contract(null, "Pump repair", 0));
+        OutboxEntry sent = single(outbox.peek(10));
+
+        Contract stored = outbox.complete(sent, contract(42L, "Pump repair", 1));
+
+        assertEquals(0, outbox.size());
+        assertEquals(Long.valueOf(42), stored.getId());
+        assertNull(store.getById(localId));
+        assertEquals("Pump repair", store.getById(42).getTitle());
+    }
+
+    @Test
+    public void editOfCreateInFlightIsSentAsUpdate() {
+        long localId = queueCreate(contract(null, "Pump repair", 0));
+        OutboxEntry sent = single(outbox.peek(10));
+
+        // The user edits the new contract while the create is on the wire
+        outbox.enqueueUpdate(localId, contract(localId, "Pump repair, north site", 0), null);
+        store.upsert(Collections.singletonList(contract(localId, "Pump repair, north site", 0)));
+
+        Contract stored = outbox.complete(sent, contract(42L, "Pump repair", 1));
+
+        OutboxEntry pending = single(outbox.peek(10));
+        assertEquals(ContractOperation.UPDATE, pending.getType());
+        assertEquals(Long.valueOf(42), pending.getContractId());
+        assertEquals("Pump repair, north site", pending.getContract().getTitle());
+        assertEquals(1, pending.getContract().getVersion());
+        assertEquals("Pump repair", pending.getBase().getTitle());
+        assertEquals("Pump repair, north site", stored.getTitle());
+        assertEquals("Pump repair, north site", store.getById(42).getTitle());
+        assertNull(store.getById(localId));
+    }
+
+    @Test
+    public void deleteOfCreateInFlightIsSentAsDelete() {
+        long localId = queueCreate(contract(null, "Pump repair", 0));
+        OutboxEntry sent = single(outbox.peek(10));
+
+        // The user deletes the new contract while the create is on the wire
+        outbox.enqueueDelete(localId);
+        store.delete(Collections.singletonList(localId));
+
+        Contract stored = outbox.complete(sent, contract(42L, "Pump repair", 1));
+
+        assertNull(stored);
+        OutboxEntry pending = single(outbox.peek(10));
+        assertEquals(ContractOperation.DELETE, pending.getType());
+        assertEquals(Long.valueOf(42), pending.getContractId());
+        assertNull(store.getById(42));
+    }
+
+    @Test
+    public void editOfUpdateInFlightIsRebasedOnSavedVersion() {
+        Contract original = contract(7L, "Fence", 3);
+        store.upsert(Collections.singletonList(original));
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        OutboxEntry sent = single(outbox.peek(10));
+
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east and west", 3), original);
+
+        outbox.complete(sent, contract(7L, "Fence, east", 4));
+
+        OutboxEntry pending = single(outbox.peek(10));
+        assertEquals(ContractOperation.UPDATE, pending.getType());
+        assertEquals("Fence, east and west", pending.getContract().getTitle());
+        assertEquals(4, pending.getContract().getVersion());
+        assertEquals("Fence, east", pending.getBase().getTitle());
+    }
+
+    @Test
+    public void foldedUpdateKeepsFirstBase() {
+        Contract original = contract(7L, "Fence", 3);
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east and west", 3), contract(7L, "Fence, east", 3));
+
+        OutboxEntry pending = single(outbox.peek(10));
+        assertEquals("Fence, east and west", pending.getContract().getTitle());
+        assertEquals("Fence", pending.getBase().getTitle());
+    }
+
+    @Test
+    public void replaceUpdateSkipsEntryEditedMeanwhile() {
+        Contract original = contract(7L, "Fence", 3);
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        OutboxEntry sent = single(outbox.peek(10));
+
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east and west", 3), original);
+
+        assertFalse(outbox.replaceUpdate(sent, contract(7L, "Merged", 5), contract(7L, "Server", 5)));
+        assertEquals("Fence, east and west", single(outbox.peek(10)).getContract().getTitle());
+    }
+
+    @Test
+    public void conflictsAreParkedAndKeptInOrder() {
+        Contract fence = contract(7L, "Fence", 3);
+        Contract gate = contract(8L, "Gate", 3);
+        store.upsert(Arrays.asList(fence, gate));
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), fence);
+        outbox.enqueueUpdate(8L, contract(8L, "Gate, new hinge", 3), gate);
+        store.upsert(Collections.singletonList(contract(7L, "Fence, east", 3)));
+        List<OutboxEntry> sent = outbox.peek(10);
+
+        // Both lose in the same batch; neither may overwrite the other or the local values
+        outbox.markConflict(sent.get(0), contract(7L, "Fence, west", 4));
+        outbox.markConflict(sent.get(1), contract(8L, "Gate, painted", 4));
+
+        assertTrue(outbox.peek(10).isEmpty());
+        assertEquals(2, outbox.size());
+        assertEquals("Fence, east", store.getById(7).getTitle());
+        OutboxEntry first = outbox.peekConflict();
+        assertEquals(Long.valueOf(7), first.getContractId());
+        assertEquals("Fence, west", first.getConflict().getTitle());
+        assertEquals("Fence", first.getBase().getTitle());
+
+        outbox.resolveConflict(7L, null);
+        assertEquals(Long.valueOf(8), outbox.peekConflict().getContractId());
+    }
+
+    @Test
+    public void keepingLocalValuesQueuesThemOnServerVersion() {
+        Contract original = contract(7L, "Fence", 3);
+        store.upsert(Collections.singletonList(original));
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        outbox.markConflict(single(outbox.peek(10)), contract(7L, "Fence, west", 4));
+
+        Contract stored = outbox.resolveConflict(7L, contract(7L, "Fence, east", 4));
+
+        assertEquals("Fence, east", stored.getTitle());
+        assertNull(outbox.peekConflict());
+        OutboxEntry pending = single(outbox.peek(10));
+        assertEquals(4, pending.getContract().getVersion());
+        assertEquals("Fence, west", pending.getBase().getTitle());
+    }
+
+    @Test
+    public void keepingServerVersionDropsLocalEdit() {
+        Contract original = contract(7L, "Fence", 3);
+        store.upsert(Collections.singletonList(original));
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        store.upsert(Collections.singletonList(contract(7L, "Fence, east", 3)));
+        outbox.markConflict(single(outbox.peek(10)), contract(7L, "Fence, west", 4));
+
+        outbox.resolveConflict(7L, null);
+
+        assertEquals(0, outbox.size());
+        assertEquals("Fence, west", store.getById(7).getTitle());
+        assertNull(outbox.resolveConflict(7L, null));
+    }
+
+    private long queueCreate(Contract contract) {
+        long localId = outbox.enqueueCreate(contract);
+        contract.setId(localId);
+        store.upsert(Collections.singletonList(contract));
+        return localId;
+    }
+
+    private static OutboxEntry single(List<OutboxEntry> entries) {
+        assertEquals(1, entries.size());
+        return entries.get(0);
+    }
+
+    private static Contract contract(Long id, String title, int version) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        contract.setVersion(version);
+        return contract;
+    }
+}
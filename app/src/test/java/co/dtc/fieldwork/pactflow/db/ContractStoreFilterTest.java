@@ -0,0 +1,155 @@
+package co.dtc.fieldwork.pactflow.db;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.api.request.ContractFilter;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+/**
+ * The offline filter in ContractStore must pick and order the same contracts as
+ * ContractFilter.matches and comparator, which patch the filtered list in memory.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class ContractStoreFilterTest {
+    private ContractStore store;
+    private List<Contract> contracts;
+
+    @Before
+    public void setUp() {
+        ContractStore.init(RuntimeEnvironment.getApplication());
+        store = ContractStore.getInstance();
+        store.getWritableDatabase().execSQL("DELETE FROM contracts");
+        contracts = Arrays.asList(
+                contract(1L, "pump repair", "Service", false, 1200.0, "2024-01-10", "2024-03-31", "5"),
+                contract(2L, "Site survey", "Consulting", true, 800.0, "2024-02-01", null, "9"),
+                contract(3L, "Annual lease", "Lease", false, null, null, "2024-01-05", "7"),
+                contract(4L, "Boiler check", "Service", false, 300.0, "2024-05-01", "2024-05-02", null),
+                contract(5L, "annual audit", "Consulting", false, 1200.0, "2023-11-01", "2024-02-15", "3"));
+        store.upsert(contracts);
+    }
+
+    @Test
+    public void draftsNewestFirst() {
+        assertEquals(Arrays.asList(3L, 1L, 5L, 4L), ids(store.getFilteredSummaryPage(ContractFilter.drafts(), 0, 10)));
+        assertSameAsInMemory(ContractFilter.drafts());
+    }
+
+    @Test
+    public void typeAndAmountRange() {
+        ContractFilter filter = new ContractFilter();
+        filter.setContractType("Service");
+        filter.setMinAmount(1000.0);
+        filter.setSort(ContractFilter.Sort.AMOUNT_DESC);
+
+        assertEquals(Collections.singletonList(1L), ids(store.getFilteredSummaryPage(filter, 0, 10)));
+        assertSameAsInMemory(filter);
+    }
+
+    @Test
+    public void periodOverlapTreatsMissingDatesAsOpen() {
+        ContractFilter filter = new ContractFilter();
+        filter.setFromDate("2024-02-01");
+        filter.setToDate("2024-02-28");
+        filter.setSort(ContractFilter.Sort.START_DATE);
+
+        assertEquals(Arrays.asList(5L, 1L, 2L), ids(store.getFilteredSummaryPage(filter, 0, 10)));
+        assertSameAsInMemory(filter);
+    }
+
+    @Test
+    public void titleSortIgnoresCaseAndPagesByOffset() {
+        ContractFilter filter = new ContractFilter();
+        filter.setSort(ContractFilter.Sort.TITLE);
+
+        assertEquals(Arrays.asList(5L, 3L), ids(store.getFilteredSummaryPage(filter, 0, 2)));
+        assertEquals(Arrays.asList(4L, 1L), ids(store.getFilteredSummaryPage(filter, 2, 2)));
+        assertSameAsInMemory(filter);
+    }
+
+    @Test
+    public void titleSortFoldsOnlyAsciiLikeTheStore() {
+        List<Contract> accented = Arrays.asList(
+                contract(6L, "Étude", "Service", false, null, null, null, null),
+                contract(7L, "état", "Service", false, null, null, null, null),
+                contract(8L, "Zoning", "Service", false, null, null, null, null));
+        store.upsert(accented);
+        contracts = new ArrayList<>(contracts);
+        contracts.addAll(accented);
+        ContractFilter filter = new ContractFilter();
+        filter.setContractType("Service");
+        filter.setSort(ContractFilter.Sort.TITLE);
+
+        // SQLite's NOCASE leaves É and é apart and after every ASCII letter
+        assertEquals(Arrays.asList(4L, 1L, 8L, 6L, 7L), ids(store.getFilteredSummaryPage(filter, 0, 10)));
+        assertSameAsInMemory(filter);
+    }
+
+    @Test
+    public void newestSortsOnTheTimestampSentToTheServer() {
+        assertEquals("timestamp:desc", ContractFilter.drafts().getSortValue());
+    }
+
+    @Test
+    public void rowsAreSummaries() {
+        Contract first = store.getFilteredSummaryPage(ContractFilter.drafts(), 0, 1).get(0);
+        assertTrue(first.isSummary());
+        assertNull(first.getDescription());
+    }
+
+    @Test
+    public void copyIsIndependentOfOriginal() {
+        ContractFilter original = ContractFilter.drafts();
+        ContractFilter copy = new ContractFilter(original);
+        original.setFinalized(true);
+
+        assertEquals(Boolean.FALSE, copy.getFinalized());
+        assertEquals(ContractFilter.Sort.NEWEST, copy.getSort());
+    }
+
+    private void assertSameAsInMemory(ContractFilter filter) {
+        List<Contract> expected = new ArrayList<>();
+        for (Contract contract : contracts) {
+            if (filter.matches(contract)) {
+                expected.add(contract);
+            }
+        }
+        Collections.sort(expected, filter.comparator());
+        assertEquals(ids(expected), ids(store.getFilteredSummaryPage(filter, 0, 100)));
+    }
+
+    private static List<Long> ids(List<Contract> contracts) {
+        List<Long> ids = new ArrayList<>();
+        for (Contract contract : contracts) {
+            ids.add(contract.getId());
+        }
+        return ids;
+    }
+
+    private static Contract contract(Long id, String title, String type, boolean finalized, Double amount,
+                                     String startDate, String endDate, String timestamp) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        contract.setContractType(type);
+        contract.setFinalized(finalized);
+        contract.setAmount(amount);
+        contract.setStartDate(startDate);
+        contract.setEndDate(endDate);
+        contract.setTimestamp(timestamp);
+        contract.setDescription("Details of " + title);
+        return contract;
+    }
+}
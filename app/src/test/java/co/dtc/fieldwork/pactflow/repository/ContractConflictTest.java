@@ -0,0 +1,109 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+public class ContractConflictTest {
+
+    @Test
+    public void editsToDifferentFieldsAreMerged() {
+        Contract base = contract(3, "Pump repair", 100.0, "Old notes");
+        Contract local = contract(3, "Pump repair", 150.0, "Old notes");
+        Contract server = contract(4, "Pump overhaul", 100.0, "New notes");
+
+        ContractConflict conflict = ContractConflict.resolve(base, local, server);
+
+        assertTrue(conflict.isResolvable());
+        assertEquals(Collections.emptyList(), conflict.getConflictingFields());
+        Contract merged = conflict.getMerged();
+        assertEquals(4, merged.getVersion());
+        assertEquals("Pump overhaul", merged.getTitle());
+        assertEquals(Double.valueOf(150.0), merged.getAmount());
+        assertEquals("New notes", merged.getDescription());
+    }
+
+    @Test
+    public void sameChangeOnBothSidesIsNotAConflict() {
+        Contract base = contract(3, "Pump repair", 100.0, null);
+        Contract local = contract(3, "Pump repair", 150.0, null);
+        Contract server = contract(4, "Pump repair", 150.0, null);
+
+        ContractConflict conflict = ContractConflict.resolve(base, local, server);
+
+        assertTrue(conflict.isResolvable());
+        assertEquals(Double.valueOf(150.0), conflict.getMerged().getAmount());
+    }
+
+    @Test
+    public void differentChangesToSameFieldConflict() {
+        Contract base = contract(3, "Pump repair", 100.0, "Old notes");
+        Contract local = contract(3, "Pump repair", 150.0, "Old notes");
+        Contract server = contract(4, "Pump overhaul", 175.0, "Old notes");
+
+        ContractConflict conflict = ContractConflict.resolve(base, local, server);
+
+        assertFalse(conflict.isResolvable());
+        assertNull(conflict.getMerged());
+        assertEquals(Collections.singletonList("amount"), conflict.getConflictingFields());
+    }
+
+    @Test
+    public void withoutBaseEveryDifferingFieldConflicts() {
+        Contract local = contract(3, "Pump repair", 150.0, "Old notes");
+        Contract server = contract(4, "Pump overhaul", 150.0, "New notes");
+
+        ContractConflict conflict = ContractConflict.resolve(null, local, server);
+
+        assertFalse(conflict.isResolvable());
+        assertNull(conflict.getBase());
+        assertEquals(Arrays.asList("title", "description"), conflict.getConflictingFields());
+    }
+
+    @Test
+    public void withoutBaseIdenticalSidesMerge() {
+        Contract local = contract(3, "Pump repair", 150.0, "Notes");
+        Contract server = contract(4, "Pump repair", 150.0, "Notes");
+
+        ContractConflict conflict = ContractConflict.resolve(null, local, server);
+
+        assertTrue(conflict.isResolvable());
+        assertEquals(4, conflict.getMerged().getVersion());
+    }
+
+    @Test
+    public void keepLocalCarriesServerVersion() {
+        Contract base = contract(3, "Pump repair", 100.0, null);
+        Contract local = contract(3, "Pump repair", 150.0, null);
+        Contract server = contract(4, "Pump repair", 175.0, null);
+
+        Contract mine = ContractConflict.resolve(base, local, server).keepLocal();
+
+        assertEquals(Long.valueOf(7L), mine.getId());
+        assertEquals(4, mine.getVersion());
+        assertEquals(Double.valueOf(150.0), mine.getAmount());
+    }
+
+    @Test
+    public void versionConflictStatuses() {
+        assertTrue(ContractConflict.isVersionConflict(409));
+        assertTrue(ContractConflict.isVersionConflict(412));
+        assertFalse(ContractConflict.isVersionConflict(400));
+    }
+
+    private static Contract contract(int version, String title, Double amount, String description) {
+        Contract contract = new Contract();
+        contract.setId(7L);
+        contract.setVersion(version);
+        contract.setTitle(title);
+        contract.setAmount(amount);
+        contract.setDescription(description);
+        contract.setContractType("service");
+        return contract;
+    }
+}
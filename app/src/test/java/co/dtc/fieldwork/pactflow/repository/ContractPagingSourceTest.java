@@ -0,0 +1,130 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Changes applied to an open window must not make the following pages skip or repeat rows.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class ContractPagingSourceTest {
+    private static final int PAGE_SIZE = 3;
+
+    private ContractStore store;
+    private ContractPagingSource source;
+    private final RecordingCallback callback = new RecordingCallback();
+
+    @Before
+    public void setUp() {
+        ContractStore.init(RuntimeEnvironment.getApplication());
+        store = ContractStore.getInstance();
+        store.getWritableDatabase().execSQL("DELETE FROM outbox");
+        store.getWritableDatabase().execSQL("DELETE FROM contracts");
+        List<Contract> contracts = new ArrayList<>();
+        for (long id = 1; id <= 9; id++) {
+            contracts.add(contract(id, "Contract " + id));
+        }
+        store.upsert(contracts);
+        source = new ContractPagingSource(new ContractRepository(), PAGE_SIZE, 2);
+    }
+
+    @Test
+    public void deleteThenNextPageKeepsEveryRowOnce() throws Exception {
+        source.refresh(callback);
+        settle();
+
+        store.delete(Collections.singletonList(2L));
+        assertTrue(source.applyChanges(null, Collections.singletonList(2L), callback));
+        source.loadNext(callback);
+        settle();
+
+        assertEquals(Arrays.asList(1L, 3L, 4L, 5L, 6L), ids(callback.window));
+    }
+
+    @Test
+    public void changedRowIsReloadedAsSummaryInPlace() throws Exception {
+        source.refresh(callback);
+        settle();
+
+        Contract edited = contract(2L, "Contract 2, revised");
+        edited.setDescription("Full text");
+        store.upsert(Collections.singletonList(edited));
+        assertFalse(source.applyChanges(Collections.singletonList(edited), null, callback));
+        settle();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(callback.window));
+        assertEquals("Contract 2, revised", callback.window.get(1).getTitle());
+        assertTrue(callback.window.get(1).isSummary());
+    }
+
+    @Test
+    public void scrollingBackAfterWindowMovedReadsPreviousPage() throws Exception {
+        source.refresh(callback);
+        settle();
+        source.loadNext(callback);
+        settle();
+        source.loadNext(callback);
+        settle();
+        assertEquals(Arrays.asList(4L, 5L, 6L, 7L, 8L, 9L), ids(callback.window));
+
+        store.delete(Collections.singletonList(3L));
+        source.loadPrevious(callback);
+        settle();
+
+        assertEquals(Arrays.asList(1L, 2L, 4L, 5L, 6L), ids(callback.window));
+        assertFalse(source.canLoadPrevious());
+    }
+
+    // Lets queued store reads finish and delivers their results on the main thread
+    private static void settle() throws InterruptedException {
+        ContractRepository.runOnDiskThread(() -> null);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static List<Long> ids(List<Contract> contracts) {
+        List<Long> ids = new ArrayList<>();
+        for (Contract contract : contracts) {
+            ids.add(contract.getId());
+        }
+        return ids;
+    }
+
+    private static Contract contract(Long id, String title) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        return contract;
+    }
+
+    private static class RecordingCallback implements ContractPagingSource.Callback {
+        List<Contract> window = Collections.emptyList();
+
+        @Override
+        public void onWindowChanged(List<Contract> window) {
+            this.window = window;
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            fail(errorMessage);
+        }
+    }
+}
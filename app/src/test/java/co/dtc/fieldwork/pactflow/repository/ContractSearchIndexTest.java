@@ -0,0 +1,119 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+public class ContractSearchIndexTest {
+    private ContractSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ContractSearchIndex();
+        index.update(Arrays.asList(
+                contract(1L, "Pump repair", "Annual service of the district pump", "Service"),
+                contract(2L, "Site survey", "Survey of the water site", "Consulting"),
+                contract(3L, "Pump-house lease", null, "Lease")));
+    }
+
+    @Test
+    public void tokenizeSplitsOnNonAlphanumericsAndLowerCases() {
+        List<String> tokens = new ArrayList<>();
+        ContractSearchIndex.tokenize("Pump-house  REPAIR, 2024/B7", tokens);
+        assertEquals(Arrays.asList("pump", "house", "repair", "2024", "b7"), tokens);
+    }
+
+    @Test
+    public void tokenizeIgnoresNullAndSeparatorsOnly() {
+        List<String> tokens = new ArrayList<>();
+        ContractSearchIndex.tokenize(null, tokens);
+        ContractSearchIndex.tokenize(" -- ", tokens);
+        assertTrue(tokens.isEmpty());
+    }
+
+    @Test
+    public void termsMatchAsWordPrefixes() {
+        assertEquals(Arrays.asList(1L, 3L), index.search("pu", 10));
+        assertEquals(Collections.singletonList(2L), index.search("SURV", 10));
+        assertEquals(Collections.emptyList(), index.search("ump", 10));
+    }
+
+    @Test
+    public void everyTermMustMatch() {
+        assertEquals(Collections.singletonList(1L), index.search("pump ann", 10));
+        assertEquals(Collections.singletonList(3L), index.search("ho pu", 10));
+        assertEquals(Collections.emptyList(), index.search("pump survey", 10));
+    }
+
+    @Test
+    public void resultsStopAtLimitInIdOrder() {
+        List<Contract> many = new ArrayList<>();
+        for (long id = 100; id > 10; id--) {
+            many.add(contract(id, "Water meter " + id, null, "Supply"));
+        }
+        index.update(many);
+
+        assertEquals(Arrays.asList(2L, 11L, 12L), index.search("wa", 3));
+        assertEquals(Arrays.asList(11L, 12L), index.search("me", 2));
+    }
+
+    @Test
+    public void contractListedUnderSeveralTokensIsReturnedOnce() {
+        // "pump" and "pumphouse" both start with "pum"
+        index.update(Collections.singletonList(contract(4L, "Pump pumphouse pumps", null, null)));
+        assertEquals(Arrays.asList(1L, 3L, 4L), index.search("pum", 10));
+    }
+
+    @Test
+    public void updateReindexesChangedText() {
+        index.update(Collections.singletonList(contract(1L, "Meter reading", null, "Service")));
+
+        assertEquals(Collections.singletonList(3L), index.search("pump", 10));
+        assertEquals(Collections.singletonList(1L), index.search("meter", 10));
+        assertEquals(Collections.singletonList(1L), index.search("service", 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void removeDropsContractFromEveryToken() {
+        index.remove(Arrays.asList(1L, 99L));
+
+        assertEquals(Collections.singletonList(3L), index.search("pump", 10));
+        assertEquals(Collections.emptyList(), index.search("annual", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void rebuildKeepsChangesMadeWhileBuilding() {
+        index.beginRebuild();
+        ContractSearchIndex built = new ContractSearchIndex();
+        built.update(Arrays.asList(
+                contract(1L, "Pump repair", null, "Service"),
+                contract(2L, "Site survey", null, "Consulting")));
+        // Written to the store while the snapshot was being read
+        index.update(Collections.singletonList(contract(5L, "Pump audit", null, "Service")));
+        index.remove(Collections.singletonList(2L));
+        index.finishRebuild(built);
+
+        assertEquals(Arrays.asList(1L, 5L), index.search("pump", 10));
+        assertEquals(Collections.emptyList(), index.search("survey", 10));
+        assertEquals(2, index.size());
+    }
+
+    private static Contract contract(Long id, String title, String description, String type) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        contract.setDescription(description);
+        contract.setContractType(type);
+        return contract;
+    }
+}
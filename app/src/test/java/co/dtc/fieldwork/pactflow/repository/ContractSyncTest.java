@@ -0,0 +1,116 @@
+package co.dtc.fieldwork.pactflow.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import co.dtc.fieldwork.pactflow.api.response.ContractChanges;
+import co.dtc.fieldwork.pactflow.db.ContractOutbox;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.model.Contract;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes still waiting in the outbox must survive both sync paths: the server copy of a
+ * contract with a queued write is older than what the user sees.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class ContractSyncTest {
+    private ContractStore store;
+    private ContractRepository repository;
+    private long localId;
+
+    @Before
+    public void setUp() {
+        ContractStore.init(RuntimeEnvironment.getApplication());
+        store = ContractStore.getInstance();
+        store.getWritableDatabase().execSQL("DELETE FROM outbox");
+        store.getWritableDatabase().execSQL("DELETE FROM contracts");
+        ContractRepository.getMemoryCache().clear();
+        repository = new ContractRepository();
+
+        store.upsert(Arrays.asList(
+                contract(1L, "Fence", 1),
+                contract(2L, "Gate", 1),
+                contract(3L, "Shed", 1),
+                contract(4L, "Well", 1)));
+
+        // What queueUpdateContract, queueDeleteContract and queueCreateContract leave behind
+        ContractOutbox outbox = new ContractOutbox(store);
+        outbox.enqueueUpdate(1L, contract(1L, "Fence, east", 1), store.getById(1));
+        store.upsert(Collections.singletonList(contract(1L, "Fence, east", 1)));
+        outbox.enqueueDelete(2L);
+        store.delete(Collections.singletonList(2L));
+        Contract created = contract(null, "Barn", 0);
+        localId = outbox.enqueueCreate(created);
+        created.setId(localId);
+        store.upsert(Collections.singletonList(created));
+    }
+
+    @Test
+    public void deltaSyncSkipsContractsWithQueuedWrites() {
+        ContractChanges applied = repository.storeChanges(
+                Arrays.asList(contract(1L, "Fence", 2), contract(2L, "Gate", 2), contract(3L, "Shed, new roof", 2)),
+                Arrays.asList(1L, 4L));
+
+        assertQueuedWritesKept();
+        assertEquals("Shed, new roof", store.getById(3).getTitle());
+        assertNull(store.getById(4));
+        assertEquals(Collections.singletonList(3L), ids(applied.getUpserts()));
+        assertEquals(Collections.singletonList(4L), applied.getDeletedIds());
+    }
+
+    @Test
+    public void fullResyncSkipsContractsWithQueuedWrites() {
+        List<Contract> serverList = Arrays.asList(contract(1L, "Fence", 2), contract(2L, "Gate", 2), contract(3L, "Shed, new roof", 2));
+        repository.storeChunk(serverList);
+        repository.retainServerContracts(new HashSet<>(ids(serverList)));
+
+        assertQueuedWritesKept();
+        assertEquals("Shed, new roof", store.getById(3).getTitle());
+        assertNull(store.getById(4));
+    }
+
+    @Test
+    public void fullResyncKeepsQueuedUpdateOfContractGoneFromServer() {
+        repository.storeChunk(Collections.singletonList(contract(3L, "Shed", 1)));
+        repository.retainServerContracts(new HashSet<>(Collections.singletonList(3L)));
+
+        // The outbox learns from the server that it is gone; until then the edit stays visible
+        assertEquals("Fence, east", store.getById(1).getTitle());
+        assertNotNull(store.getById(localId));
+    }
+
+    private void assertQueuedWritesKept() {
+        assertEquals("Fence, east", store.getById(1).getTitle());
+        assertNull(store.getById(2));
+        assertEquals("Barn", store.getById(localId).getTitle());
+    }
+
+    private static List<Long> ids(List<Contract> contracts) {
+        List<Long> ids = new ArrayList<>();
+        for (Contract contract : contracts) {
+            ids.add(contract.getId());
+        }
+        return ids;
+    }
+
+    private static Contract contract(Long id, String title, int version) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        contract.setVersion(version);
+        return contract;
+    }
+}
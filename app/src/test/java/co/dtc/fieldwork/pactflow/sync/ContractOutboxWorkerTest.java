@@ -0,0 +1,109 @@
+package co.dtc.fieldwork.pactflow.sync;
+
+import androidx.work.ListenableWorker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import co.dtc.fieldwork.pactflow.api.ApiClient;
+import co.dtc.fieldwork.pactflow.api.ContractApiService;
+import co.dtc.fieldwork.pactflow.db.ContractOutbox;
+import co.dtc.fieldwork.pactflow.db.ContractStore;
+import co.dtc.fieldwork.pactflow.model.Contract;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * A write the server refuses for good must not keep the writes queued behind it from going out.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class ContractOutboxWorkerTest {
+    private MockWebServer server;
+    private ContractApiService api;
+    private ContractStore store;
+    private ContractOutbox outbox;
+    private long localId;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create(ApiClient.createGson()))
+                .build()
+                .create(ContractApiService.class);
+
+        ContractStore.init(RuntimeEnvironment.getApplication());
+        store = ContractStore.getInstance();
+        store.getWritableDatabase().execSQL("DELETE FROM outbox");
+        store.getWritableDatabase().execSQL("DELETE FROM contracts");
+        outbox = new ContractOutbox(store);
+
+        Contract original = contract(7L, "Fence", 3);
+        store.upsert(Collections.singletonList(original));
+        outbox.enqueueUpdate(7L, contract(7L, "Fence, east", 3), original);
+        Contract created = contract(null, "", 0);
+        localId = outbox.enqueueCreate(created);
+        created.setId(localId);
+        store.upsert(Collections.singletonList(created));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void rejectedWriteIsDroppedAndTheRestStillSent() throws Exception {
+        // The create is invalid, so the batch holding both is refused as a whole
+        server.enqueue(new MockResponse().setResponseCode(400));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(
+                "{\"data\":[{\"index\":0,\"status\":200,\"data\":{\"id\":7,\"title\":\"Fence, east\",\"version\":4}}]}"));
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        ListenableWorker.Result result = ContractOutboxWorker.drain(outbox, api);
+
+        assertTrue(result instanceof ListenableWorker.Result.Failure);
+        assertEquals(1, result.getOutputData().getInt(ContractOutboxWorker.KEY_REJECTED, 0));
+        assertNotNull(result.getOutputData().getString(ContractOutboxWorker.KEY_ERROR));
+        assertEquals(0, outbox.size());
+        assertEquals(4, store.getById(7).getVersion());
+        assertEquals("Fence, east", store.getById(7).getTitle());
+        assertNull(store.getById(localId));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void unauthorizedBatchKeepsWrites() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(401));
+
+        ListenableWorker.Result result = ContractOutboxWorker.drain(outbox, api);
+
+        assertTrue(result instanceof ListenableWorker.Result.Failure);
+        assertEquals(2, outbox.size());
+        assertNotNull(store.getById(localId));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private static Contract contract(Long id, String title, int version) {
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setTitle(title);
+        contract.setVersion(version);
+        return contract;
+    }
+}
@@ -0,0 +1,56 @@
+package co.dtc.fieldwork.pactflow.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the startup and Contracts list journey as a Baseline Profile. Needs an API 33+ device
+ * (or rooted API 28+); the output replaces app/src/main/baseline-prof.txt.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(StartupBenchmark.PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            StartupBenchmark.startHome(scope);
+            StartupBenchmark.openContractsTab(scope);
+
+            UiDevice device = scope.getDevice();
+            UiObject2 list = device.findObject(By.res(StartupBenchmark.PACKAGE_NAME, "rvContracts"));
+            if (list != null) {
+                // Give the list a margin so flings do not open the navigation gestures
+                list.setGestureMargin(device.getDisplayWidth() / 5);
+                list.fling(Direction.DOWN);
+                device.waitForIdle();
+                list.fling(Direction.UP);
+                device.waitForIdle();
+            }
+
+            UiObject2 search = device.findObject(By.res(StartupBenchmark.PACKAGE_NAME, "etSearch"));
+            if (search != null) {
+                search.setText("ma");
+                device.wait(Until.hasObject(By.res(StartupBenchmark.PACKAGE_NAME, "rvContracts")),
+                        StartupBenchmark.UI_TIMEOUT_MS);
+                search.clear();
+            }
+            return Unit.INSTANCE;
+        });
+    }
+}
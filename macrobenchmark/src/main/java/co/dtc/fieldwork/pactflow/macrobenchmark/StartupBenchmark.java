@@ -0,0 +1,108 @@
+package co.dtc.fieldwork.pactflow.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.annotation.OptIn;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.ExperimentalMetricApi;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.filters.LargeTest;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold and warm startup of HomeActivity and the time from tapping the Contracts tab to its first
+ * frame, each measured without AOT compilation and with the bundled Baseline Profile.
+ */
+@LargeTest
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+    static final String PACKAGE_NAME = "co.dtc.fieldwork.pactflow";
+    static final long UI_TIMEOUT_MS = 5_000;
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Parameterized.Parameter
+    public CompilationMode compilationMode;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<CompilationMode> compilationModes() {
+        return Arrays.asList(new CompilationMode.None(), new CompilationMode.Partial());
+    }
+
+    @Test
+    public void coldStartup() {
+        measureStartup(StartupMode.COLD);
+    }
+
+    @Test
+    public void warmStartup() {
+        measureStartup(StartupMode.WARM);
+    }
+
+    @Test
+    @OptIn(markerClass = ExperimentalMetricApi.class)
+    public void contractsTabFirstFrame() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Arrays.asList(new TraceSectionMetric("ContractsTab.firstFrame"), new FrameTimingMetric()),
+                compilationMode,
+                StartupMode.WARM,
+                ITERATIONS,
+                scope -> {
+                    startHome(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    openContractsTab(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private void measureStartup(StartupMode startupMode) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    startHome(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    static void startHome(MacrobenchmarkScope scope) {
+        Intent intent = new Intent();
+        intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".HomeActivity");
+        scope.startActivityAndWait(intent);
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "bottom_navigation")), UI_TIMEOUT_MS);
+    }
+
+    static void openContractsTab(MacrobenchmarkScope scope) {
+        scope.getDevice().findObject(By.res(PACKAGE_NAME, "nav_contracts")).click();
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "rvContracts")), UI_TIMEOUT_MS);
+    }
+}